@@ -4,6 +4,7 @@ open module password.manager {
     requires java.xml;
     requires java.logging;
     requires java.desktop;
+    requires jdk.jfr;
 
     requires javafx.base;
     requires javafx.controls;
@@ -1,5 +1,5 @@
 /*
- Copyright © 2022-2024 Petr Panteleyev <petr@panteleyev.org>
+ Copyright © 2022-2026 Petr Panteleyev <petr@panteleyev.org>
  SPDX-License-Identifier: BSD-2-Clause
  */
 package org.panteleyev.pwdmanager;
@@ -46,10 +46,12 @@ public class ApplicationFiles {
     private static final String PACKAGE_NAME = "panteleyev.org";
     private static final String APP_NAME = "PasswordManager";
     private static final String LOGS_DIR_NAME = "logs";
+    private static final String CSS_CACHE_DIR_NAME = "css";
 
     private final Path configDirectory;
     private final Path dataDirectory;
     private final Path logDirectory;
+    private final Path cssCacheDirectory;
 
     private final Map<AppFile, Path> fileMap = new EnumMap<>(AppFile.class);
 
@@ -66,6 +68,7 @@ public class ApplicationFiles {
             dataDirectory = configDirectory;
         }
         logDirectory = dataDirectory.resolve(LOGS_DIR_NAME);
+        cssCacheDirectory = configDirectory.resolve(CSS_CACHE_DIR_NAME);
 
         for (var appFile : AppFile.CONFIG_FILES) {
             fileMap.put(appFile, configDirectory.resolve(appFile.getFileName()));
@@ -76,6 +79,10 @@ public class ApplicationFiles {
         return logDirectory;
     }
 
+    public Path getCssCacheDirectory() {
+        return cssCacheDirectory;
+    }
+
     public void initialize() {
         initDirectory(configDirectory, "Application");
         initDirectory(dataDirectory, "Data");
@@ -4,7 +4,9 @@ package org.panteleyev.pwdmanager;
 
 import javafx.geometry.HPos;
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.geometry.VPos;
+import javafx.scene.control.Button;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.Hyperlink;
 import javafx.scene.control.Label;
@@ -14,11 +16,13 @@ import javafx.scene.control.ScrollPane;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
 import javafx.scene.control.TextArea;
+import javafx.scene.control.Tooltip;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import org.panteleyev.pwdmanager.model.Card;
@@ -27,33 +31,65 @@ import org.panteleyev.pwdmanager.model.Field;
 import org.panteleyev.pwdmanager.model.FieldType;
 import org.panteleyev.pwdmanager.model.Note;
 import org.panteleyev.pwdmanager.model.Picture;
+import org.panteleyev.pwdmanager.model.WalletRecord;
+import org.panteleyev.pwdmanager.search.NoteIndex;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
+import static org.panteleyev.fx.factories.BoxFactory.hBox;
+import static org.panteleyev.fx.factories.ButtonFactory.button;
 import static org.panteleyev.fx.factories.StringFactory.string;
 import static org.panteleyev.fx.factories.TabFactory.tab;
 import static org.panteleyev.pwdmanager.Constants.MASK;
 import static org.panteleyev.pwdmanager.Constants.UI_BUNDLE;
 import static org.panteleyev.pwdmanager.PasswordManagerApplication.showDocument;
+import static org.panteleyev.pwdmanager.Shortcuts.F3;
+import static org.panteleyev.pwdmanager.Shortcuts.SHIFT_F3;
+import static org.panteleyev.pwdmanager.Styles.SMALL_SPACING;
 import static org.panteleyev.pwdmanager.Styles.STYLE_CARD_CONTENT_TITLE;
 import static org.panteleyev.pwdmanager.Styles.STYLE_FIELD_NAME;
 import static org.panteleyev.pwdmanager.Styles.STYLE_FIELD_VALUE;
 import static org.panteleyev.pwdmanager.Styles.STYLE_GRID_PANE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_COPY;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_NEXT_MATCH;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_NOTES;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_PREVIOUS_MATCH;
 import static org.panteleyev.pwdmanager.model.Picture.SMALL_IMAGE_SIZE;
 import static org.panteleyev.pwdmanager.model.Picture.imageView;
 
 final class CardViewer extends BorderPane {
     private static final double LEFT_WIDTH = 40.0;
     private static final double RIGHT_WIDTH = 100.0 - LEFT_WIDTH;
+    private static final int NOTE_INDEX_CACHE_SIZE = 16;
 
     private final GridPane grid = setupGrid();
     private final TextArea noteArea = new TextArea();
 
+    // Search matches in the note
+    private final Label matchLabel = new Label();
+    private final Button previousMatchButton = button("\u25B2", _ -> onPreviousMatch());
+    private final Button nextMatchButton = button("\u25BC", _ -> onNextMatch());
+    private final HBox matchBar = hBox(SMALL_SPACING, matchLabel, previousMatchButton, nextMatchButton);
+    private final BorderPane notePane = new BorderPane(noteArea);
+
     private final TabPane tabPane = new TabPane();
     private final Tab fieldTab;
-    private final Tab noteTab = tab("Note", noteArea);
+    private final Tab noteTab = tab("Note", notePane);
+
+    // Indexes of recently shown notes, edited notes are updated incrementally
+    private final Map<UUID, NoteIndex> noteIndexes = new LinkedHashMap<>(NOTE_INDEX_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, NoteIndex> eldest) {
+            return size() > NOTE_INDEX_CACHE_SIZE;
+        }
+    };
+    private NoteIndex noteIndex;
+    private List<String> highlightTexts = List.of();
+    private List<NoteIndex.Match> matches = List.of();
+    private int currentMatch;
 
 
     CardViewer() {
@@ -73,6 +109,21 @@ final class CardViewer extends BorderPane {
         fieldTab.getStyleClass().add(STYLE_CARD_CONTENT_TITLE);
 
         noteArea.setEditable(false);
+        noteArea.setOnKeyPressed(event -> {
+            if (F3.match(event)) {
+                onNextMatch();
+                event.consume();
+            } else if (SHIFT_F3.match(event)) {
+                onPreviousMatch();
+                event.consume();
+            }
+        });
+
+        previousMatchButton.setTooltip(new Tooltip(string(UI_BUNDLE, I18N_PREVIOUS_MATCH)));
+        nextMatchButton.setTooltip(new Tooltip(string(UI_BUNDLE, I18N_NEXT_MATCH)));
+        matchBar.setAlignment(Pos.CENTER_RIGHT);
+        matchBar.setPadding(new Insets(SMALL_SPACING));
+
         setCenter(tabPane);
     }
 
@@ -80,6 +131,18 @@ final class CardViewer extends BorderPane {
         grid.getChildren().clear();
         tabPane.getTabs().remove(fieldTab);
         tabPane.getTabs().remove(noteTab);
+        noteIndex = null;
+        updateMatches();
+    }
+
+    /**
+     * Sets search texts to be highlighted in the note.
+     *
+     * @param texts lower case texts, empty list clears highlighting
+     */
+    void setHighlightTexts(List<String> texts) {
+        highlightTexts = texts;
+        updateMatches();
     }
 
     void setData(Card card, List<FieldWrapper> items) {
@@ -140,8 +203,8 @@ final class CardViewer extends BorderPane {
             if (!tabPane.getTabs().contains(noteTab)) {
                 tabPane.getTabs().add(noteTab);
             }
-            noteArea.setText(note);
         }
+        setNote(card);
 
         noteTab.setText(string(UI_BUNDLE, I18N_NOTES));
         tabPane.getSelectionModel().selectFirst();
@@ -156,7 +219,55 @@ final class CardViewer extends BorderPane {
         }
 
         noteTab.setText(note.name());
-        noteArea.setText(note.note());
+        setNote(note);
+    }
+
+    private void setNote(WalletRecord record) {
+        var text = record.note();
+        noteIndex = noteIndexes.get(record.uuid());
+        if (noteIndex == null) {
+            noteIndex = new NoteIndex(text);
+            noteIndexes.put(record.uuid(), noteIndex);
+        } else {
+            noteIndex.replace(text);
+        }
+        noteArea.setText(text);
+        updateMatches();
+    }
+
+    private void updateMatches() {
+        matches = noteIndex == null || highlightTexts.isEmpty() ? List.of() : noteIndex.find(highlightTexts);
+        currentMatch = 0;
+        if (matches.isEmpty()) {
+            notePane.setTop(null);
+            noteArea.deselect();
+        } else {
+            notePane.setTop(matchBar);
+            showMatch();
+        }
+    }
+
+    private void onNextMatch() {
+        if (!matches.isEmpty()) {
+            currentMatch = (currentMatch + 1) % matches.size();
+            showMatch();
+        }
+    }
+
+    private void onPreviousMatch() {
+        if (!matches.isEmpty()) {
+            currentMatch = (currentMatch + matches.size() - 1) % matches.size();
+            showMatch();
+        }
+    }
+
+    /**
+     * Selects current match, text area scrolls to the caret at the match end.
+     */
+    private void showMatch() {
+        var match = matches.get(currentMatch);
+        noteArea.selectRange(match.start(), match.end());
+        matchLabel.setText((currentMatch + 1) + " / " + matches.size());
     }
 
     private void onHyperlinkClick(String url) {
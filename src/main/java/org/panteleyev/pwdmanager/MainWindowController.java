@@ -7,6 +7,7 @@ import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 import javafx.collections.transformation.SortedList;
@@ -22,13 +23,13 @@ import javafx.scene.control.SeparatorMenuItem;
 import javafx.scene.control.SplitPane;
 import javafx.scene.control.TextField;
 import javafx.scene.control.TitledPane;
+import javafx.scene.control.Tooltip;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
 import javafx.scene.layout.BorderPane;
 import javafx.stage.Stage;
 import javafx.stage.WindowEvent;
 import org.controlsfx.control.textfield.TextFields;
-import org.panteleyev.commons.crypto.AES;
 import org.panteleyev.freedesktop.Utility;
 import org.panteleyev.freedesktop.entry.DesktopEntryBuilder;
 import org.panteleyev.freedesktop.entry.DesktopEntryType;
@@ -43,25 +44,34 @@ import org.panteleyev.pwdmanager.dialogs.EditCardDialog;
 import org.panteleyev.pwdmanager.dialogs.EditNoteDialog;
 import org.panteleyev.pwdmanager.dialogs.NoteDialog;
 import org.panteleyev.pwdmanager.dialogs.PasswordDialog;
-import org.panteleyev.pwdmanager.filters.FieldContentFilter;
-import org.panteleyev.pwdmanager.filters.RecordNameFilter;
 import org.panteleyev.pwdmanager.imprt.ImportDialog;
 import org.panteleyev.pwdmanager.model.Card;
 import org.panteleyev.pwdmanager.model.Note;
 import org.panteleyev.pwdmanager.model.RecordType;
 import org.panteleyev.pwdmanager.model.WalletRecord;
+import org.panteleyev.pwdmanager.search.SearchIndex;
+import org.panteleyev.pwdmanager.search.SearchPipeline;
 import org.panteleyev.pwdmanager.settings.SettingsDialog;
+import org.panteleyev.pwdmanager.storage.SaveScheduler;
+import org.panteleyev.pwdmanager.storage.SearchIndexFile;
+import org.panteleyev.pwdmanager.storage.SessionKey;
+import org.panteleyev.pwdmanager.storage.WalletJournal;
+import org.panteleyev.pwdmanager.storage.WalletFiles;
+import org.panteleyev.pwdmanager.storage.WrongPasswordException;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -91,6 +101,7 @@ import static org.panteleyev.pwdmanager.Shortcuts.SHORTCUT_N;
 import static org.panteleyev.pwdmanager.Shortcuts.SHORTCUT_O;
 import static org.panteleyev.pwdmanager.Shortcuts.SHORTCUT_T;
 import static org.panteleyev.pwdmanager.Shortcuts.SHORTCUT_V;
+import static org.panteleyev.pwdmanager.StartupTimer.phase;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_CHANGE_PASSWORD;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_CONFIRMATION;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_COPY;
@@ -118,6 +129,7 @@ import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_PASTE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_PURGE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_RESTORE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_SAVE;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_SEARCH_SYNTAX;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_SHOW_DELETED;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_SURE_TO_DELETE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_SURE_TO_FINALLY_DELETE;
@@ -125,6 +137,7 @@ import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_SURE_T
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_TOOLS;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_UNABLE_TO_READ_FILE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_VIEW;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_WRONG_PASSWORD;
 import static org.panteleyev.pwdmanager.imprt.ImportUtil.calculateImport;
 import static org.panteleyev.pwdmanager.model.Card.COMPARE_BY_ACTIVE;
 import static org.panteleyev.pwdmanager.model.Card.COMPARE_BY_FAVORITE;
@@ -132,14 +145,24 @@ import static org.panteleyev.pwdmanager.model.Card.COMPARE_BY_NAME;
 
 public final class MainWindowController extends Controller {
     private static final Logger LOGGER = Logger.getLogger(MainWindowController.class.getName());
+    private static final Duration SEARCH_DEBOUNCE = Duration.ofMillis(150);
+    private static final Comparator<WalletRecord> DEFAULT_ORDER =
+            COMPARE_BY_ACTIVE.thenComparing(COMPARE_BY_FAVORITE).thenComparing(COMPARE_BY_NAME);
+
     private final BooleanProperty showDeletedRecords = new SimpleBooleanProperty(false);
     private final PredicateProperty<WalletRecord> defaultFilter = new PredicateProperty<>(WalletRecord::active);
     private final SimpleObjectProperty<File> currentFile = new SimpleObjectProperty<>();
     private final ObservableList<WalletRecord> recordList = FXCollections.observableArrayList();
+    // Follows the record list before the filtered list does, so that lookups from its listeners see current positions
+    private final UuidIndex uuidIndex = UuidIndex.observe(recordList);
 
-    private final SortedList<WalletRecord> sortedList = recordSortedList(recordList);
-    private final FilteredList<WalletRecord> filteredList = recordFilteredList(sortedList, defaultFilter);
-    private final ListView<WalletRecord> cardListView = new ListView<>(filteredList);
+    // Only visible records are sorted, search results are ranked by the search filter
+    private final FilteredList<WalletRecord> filteredList = recordFilteredList(recordList, defaultFilter);
+    private final SortedList<WalletRecord> sortedList = recordSortedList(filteredList);
+    private final ListView<WalletRecord> cardListView = new ListView<>(sortedList);
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final SearchPipeline searchPipeline =
+            new SearchPipeline(searchIndex, SEARCH_DEBOUNCE, Platform::runLater, this::onSearchResult);
 
     private final BorderPane leftPane = new BorderPane(cardListView);
     private final TitledPane treeViewPane = new TitledPane("", leftPane);
@@ -149,7 +172,14 @@ public final class MainWindowController extends Controller {
     private final BorderPane recordViewPane = new BorderPane();
 
     private final CardViewer cardContentView = new CardViewer();
-    private String currentPassword;
+    private SessionKey sessionKey = new SessionKey("");
+
+    private final SaveScheduler saveScheduler = new SaveScheduler();
+    // Restores or rebuilds persisted search index of the opened wallet
+    private final ExecutorService searchIndexExecutor =
+            Executors.newSingleThreadExecutor(Thread.ofVirtual().name("search-index").factory());
+    // Records were changed since the wallet was opened or its search index was persisted
+    private boolean recordsChanged;
 
     // Actions
     private final FxAction newCardAction = fxAction(string(UI_BUNDLE, I18N_NEW_CARD, ELLIPSIS))
@@ -186,9 +216,11 @@ public final class MainWindowController extends Controller {
         setupWindow(new BorderPane(createControls(), createMainMenu(), null, null, null));
 
         cardListView.getSelectionModel().selectedItemProperty().addListener(_ -> onListViewSelected());
+        recordList.addListener(this::onRecordListChanged);
 
         leftPane.setTop(searchTextField);
         BorderPane.setMargin(searchTextField, new Insets(0, 0, 10, 0));
+        searchTextField.setTooltip(new Tooltip(string(UI_BUNDLE, I18N_SEARCH_SYNTAX)));
 
         recordViewPane.setCenter(cardContentView);
 
@@ -198,7 +230,7 @@ public final class MainWindowController extends Controller {
         });
 
         if (params != null) {
-            loadDocument(params.initialFile(), params.password(), params.saveFileName());
+            loadDocument(params.initialFile(), params.key(), params.saveFileName(), true);
         }
     }
 
@@ -336,14 +368,33 @@ public final class MainWindowController extends Controller {
 
     private void doSearch(String newValue) {
         if (newValue.isEmpty()) {
+            searchPipeline.cancel();
             filteredList.predicateProperty().bind(defaultFilter);
+            sortedList.setComparator(DEFAULT_ORDER);
+            cardContentView.setHighlightTexts(List.of());
         } else {
-            filteredList.predicateProperty().bind(
-                    PredicateProperty.and(List.of(
-                            defaultFilter,
-                            new PredicateProperty<>(new RecordNameFilter(newValue).or(new FieldContentFilter(newValue)))
-                    ))
-            );
+            searchPipeline.submit(newValue);
+        }
+    }
+
+    private void onSearchResult(SearchIndex.Filter filter) {
+        filteredList.predicateProperty().bind(
+                PredicateProperty.and(List.of(defaultFilter, new PredicateProperty<>(filter)))
+        );
+        sortedList.setComparator(filter.comparator().thenComparing(DEFAULT_ORDER));
+        cardContentView.setHighlightTexts(filter.contentTexts());
+    }
+
+    private void onRecordListChanged(ListChangeListener.Change<? extends WalletRecord> change) {
+        recordsChanged = true;
+        while (change.next()) {
+            if (change.wasPermutated()) {
+                continue;
+            }
+            change.getRemoved().forEach(searchIndex::remove);
+            if (change.wasAdded()) {
+                change.getAddedSubList().forEach(searchIndex::add);
+            }
         }
     }
 
@@ -365,27 +416,33 @@ public final class MainWindowController extends Controller {
             return;
         }
 
-        new PasswordDialog(this, file, false).showAndWait().ifPresent(password -> {
-            try (var fileInputStream = new FileInputStream(file);
-                 var decypheredInputStream = decypheredInputStream(fileInputStream, password)
-            ) {
-                var list = Serializer.deserialize(decypheredInputStream);
+        new PasswordDialog(this, file, false, true).showAndWait().ifPresent(key -> {
+            try {
+                List<WalletRecord> list;
+                try (key) {
+                    list = WalletFiles.read(file.toPath(), key).stream().map(WalletFiles::detach).toList();
+                }
 
-                var importRecords = calculateImport(recordList, list);
+                var importRecords = calculateImport(recordList, list, true);
                 if (importRecords.isEmpty()) {
                     new Alert(Alert.AlertType.INFORMATION, string(UI_BUNDLE, I18N_NOTHING_TO_IMPORT), ButtonType.OK)
                             .showAndWait();
                 } else {
                     new ImportDialog(this, importRecords).showAndWait().ifPresent(records -> {
+                        if (records.isEmpty()) {
+                            return;
+                        }
+                        var updated = new ArrayList<>(recordList);
                         for (var r : records) {
-                            if (r.existingCard() != null) {
-                                recordList.removeAll(r.existingCard());
+                            var index = r.existingCard() == null ? -1 : uuidIndex.indexOf(r.existingCard().uuid());
+                            if (index != -1) {
+                                updated.set(index, r.cardToImport());
+                            } else {
+                                updated.add(r.cardToImport());
                             }
-                            recordList.add(r.cardToImport());
-                        }
-                        if (!records.isEmpty()) {
-                            writeDocument();
                         }
+                        recordList.setAll(updated);
+                        writeDocument();
                     });
                 }
             } catch (Exception ex) {
@@ -400,7 +457,7 @@ public final class MainWindowController extends Controller {
         if (file != null) {
             new PasswordDialog(this, file, false)
                     .showAndWait()
-                    .ifPresent(password -> writeDocument(file, password));
+                    .ifPresent(key -> writeDocument(file, key));
         }
     }
 
@@ -408,7 +465,7 @@ public final class MainWindowController extends Controller {
         recordList.add(newRecord);
         cardListView.getSelectionModel().select(newRecord);
         cardListView.scrollTo(newRecord);
-        writeDocument();
+        writeChange(new WalletJournal.Put(newRecord));
     }
 
     private void onDeleteRecord() {
@@ -424,10 +481,10 @@ public final class MainWindowController extends Controller {
                         if (item.active()) {
                             var newCard = item.setActive(false);
                             updateListItem(newCard);
-                            writeDocument();
+                            writeChange(new WalletJournal.Put(newCard));
                         } else {
                             recordList.remove(item);
-                            writeDocument();
+                            writeChange(new WalletJournal.Remove(item.uuid()));
                         }
                     });
         });
@@ -437,7 +494,7 @@ public final class MainWindowController extends Controller {
         getSelectedItem().ifPresent(card -> {
             var newCard = card.setActive(true);
             updateListItem(newCard);
-            writeDocument();
+            writeChange(new WalletJournal.Put(newCard));
         });
     }
 
@@ -497,20 +554,13 @@ public final class MainWindowController extends Controller {
         setupRecordViewer(item);
     }
 
-    private Optional<WalletRecord> findByUuid(UUID uuid) {
-        return recordList.stream().filter(x -> x.uuid().equals(uuid)).findFirst();
-    }
-
     private void processEditedRecord(WalletRecord r) {
-        var index = getIndexByUUID(r.uuid());
-        if (index != -1) {
-            recordList.set(index, r);
-        }
+        updateListItem(r);
 
         cardListView.scrollTo(r);
         cardListView.getSelectionModel().select(r);
 
-        writeDocument();
+        writeChange(new WalletJournal.Put(r));
     }
 
     private void onEditCard() {
@@ -542,26 +592,17 @@ public final class MainWindowController extends Controller {
         var cb = Clipboard.getSystemClipboard();
         var sourceId = (UUID) cb.getContent(Card.DATA_FORMAT);
 
-        findByUuid(sourceId).ifPresent(sourceRecord -> {
+        findRecordById(sourceId).ifPresent(sourceRecord -> {
             var newRecord = sourceRecord.copyWithNewUuid();
             recordList.add(newRecord);
             cardListView.getSelectionModel().select(newRecord);
             cardListView.scrollTo(newRecord);
-            writeDocument();
+            writeChange(new WalletJournal.Put(newRecord));
         });
     }
 
-    private int getIndexByUUID(UUID uuid) {
-        for (int index = 0; index < recordList.size(); index++) {
-            if (recordList.get(index).uuid().equals(uuid)) {
-                return index;
-            }
-        }
-        return -1;
-    }
-
     private void updateListItem(WalletRecord card) {
-        var index = getIndexByUUID(card.uuid());
+        var index = uuidIndex.indexOf(card.uuid());
         if (index != -1) {
             recordList.set(index, card);
         }
@@ -573,12 +614,12 @@ public final class MainWindowController extends Controller {
             updateListItem(newCard);
             cardListView.getSelectionModel().select(newCard);
             cardListView.scrollTo(newCard);
-            writeDocument();
+            writeChange(new WalletJournal.Put(newCard));
         });
     }
 
     private Optional<WalletRecord> findRecordById(UUID uuid) {
-        return sortedList.stream().filter(x -> x.uuid().equals(uuid)).findFirst();
+        return uuidIndex.get(uuid);
     }
 
     private void setTitle() {
@@ -593,8 +634,11 @@ public final class MainWindowController extends Controller {
         var file = fileChooser(string(UI_BUNDLE, I18N_NEW_FILE), List.of(EXTENSION_FILTER))
                 .showSaveDialog(getStage());
         if (file != null) {
-            new PasswordDialog(this, file, true).showAndWait().ifPresent(password -> {
-                currentPassword = password;
+            new PasswordDialog(this, file, true).showAndWait().ifPresent(key -> {
+                saveScheduler.flush();
+                saveSearchIndex();
+                replaceSessionKey(key);
+                searchIndex.reset(List.of());
                 recordList.clear();
 
                 currentFile.set(file);
@@ -614,14 +658,24 @@ public final class MainWindowController extends Controller {
         }
     }
 
-    private void loadDocument(File file, String password, boolean changeSettings) {
-        currentPassword = password;
+    private void loadDocument(File file, SessionKey key, boolean changeSettings, boolean startup) {
+        // File may be the one that is being saved right now
+        saveScheduler.flush();
+        saveSearchIndex();
 
-        try (var fileInputStream = new FileInputStream(file);
-             var decypheredInputStream = decypheredInputStream(fileInputStream, password)
-        ) {
-            var list = Serializer.deserialize(decypheredInputStream);
-            recordList.setAll(list);
+        try {
+            List<WalletRecord> list;
+            try (var _ = startup ? phase("Wallet read") : null) {
+                list = WalletFiles.read(file.toPath(), key);
+            }
+            try (var _ = startup ? phase("Record list update") : null) {
+                // New wallet is indexed on the first search unless its persisted index is restored before
+                searchIndex.reset(list);
+                recordList.setAll(list);
+            }
+            recordsChanged = false;
+            loadSearchIndex(file.toPath(), key, list, startup);
+            replaceSessionKey(key);
 
             currentFile.set(file);
             if (changeSettings) {
@@ -630,10 +684,13 @@ public final class MainWindowController extends Controller {
 
             setTitle();
         } catch (Exception ex) {
+            key.close();
             var path = file.getAbsolutePath();
             var alert = new Alert(Alert.AlertType.ERROR, ex.toString());
             alert.setTitle(string(UI_BUNDLE, I18N_ERROR));
-            alert.setHeaderText(string(UI_BUNDLE, I18N_UNABLE_TO_READ_FILE, ": ") + path);
+            alert.setHeaderText(ex instanceof WrongPasswordException
+                    ? string(UI_BUNDLE, I18N_WRONG_PASSWORD)
+                    : string(UI_BUNDLE, I18N_UNABLE_TO_READ_FILE, ": ") + path);
             alert.showAndWait();
             LOGGER.log(Level.SEVERE, "Exception while reading file " + path, ex);
         }
@@ -647,37 +704,135 @@ public final class MainWindowController extends Controller {
             }
             setTitle();
         } else {
-            new PasswordDialog(this, file, false).showAndWait()
-                    .ifPresent(password -> loadDocument(file, password, changeSettings));
+            new PasswordDialog(this, file, false, true).showAndWait()
+                    .ifPresent(key -> loadDocument(file, key, changeSettings, false));
         }
     }
 
-    private void writeDocument() {
-        requireNonNull(currentFile.get());
-        writeDocument(currentFile.get(), currentPassword);
+    /**
+     * Restores persisted search index of the wallet on a background thread. If the wallet was changed since the
+     * index was persisted, the index is built and persisted instead.
+     *
+     * @param file    wallet file
+     * @param key     session key
+     * @param records records read from the wallet file
+     * @param startup measure loading as a startup phase
+     */
+    private void loadSearchIndex(Path file, SessionKey key, List<WalletRecord> records, boolean startup) {
+        // Checksum of the content that was read, changes made after that are written later
+        var checksum = saveScheduler.checksum(file);
+        searchIndexExecutor.execute(() -> {
+            try (var _ = startup ? phase("Search index load") : null) {
+                var index = SearchIndexFile.read(file, key, checksum.get());
+                if (index.isPresent() && searchIndex.restore(index.get(), records)) {
+                    return;
+                }
+                LOGGER.info("Search index of " + file + " is rebuilt");
+                searchIndex.build();
+                var data = searchIndex.export(records);
+                if (data.isPresent()) {
+                    SearchIndexFile.write(file, key, checksum.get(), data.get());
+                }
+            } catch (InterruptedException _) {
+                // Window is closing
+            } catch (ExecutionException | IOException | RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Search index of " + file + " cannot be loaded", ex);
+            }
+        });
     }
 
-    private void writeDocument(File file, String password) {
-        try (var bOut = new ByteArrayOutputStream()) {
-            if (!password.isEmpty()) {
-                try (var cOut = AES.aes256().getOutputStream(bOut, password)) {
-                    Serializer.serialize(cOut, recordList);
+    /**
+     * Persists search index of the current wallet on a background thread if its records were changed. The index
+     * is detached first, so it can be reset for another wallet meanwhile. All saves must be scheduled before.
+     */
+    private void saveSearchIndex() {
+        if (currentFile.get() == null || !recordsChanged) {
+            return;
+        }
+        recordsChanged = false;
+
+        var file = currentFile.get().toPath();
+        var key = sessionKey;
+        var records = List.copyOf(recordList);
+        var index = searchIndex.detach();
+        // Checksum of the content the index was built for, changes made after that are written later
+        var checksum = saveScheduler.checksum(file);
+        searchIndexExecutor.execute(() -> {
+            try {
+                var data = index.export(records);
+                if (data.isPresent()) {
+                    SearchIndexFile.write(file, key, checksum.get(), data.get());
                 }
-            } else {
-                Serializer.serialize(bOut, recordList);
+            } catch (InterruptedException _) {
+                // Window is closing
+            } catch (ExecutionException | IOException | RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Search index of " + file + " cannot be saved", ex);
             }
+        });
+    }
 
-            try (var fOut = new FileOutputStream(file)) {
-                fOut.write(bOut.toByteArray());
+    /**
+     * Deletes persisted search index of the current wallet, e.g. when it is encrypted with a key that is no longer
+     * used. The index is saved again when the wallet is closed.
+     */
+    private void deleteSearchIndex() {
+        var file = currentFile.get().toPath();
+        // Index that is being written with the old key is deleted as well
+        searchIndexExecutor.execute(() -> {
+            try {
+                SearchIndexFile.delete(file);
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, "Search index of " + file + " cannot be deleted", ex);
             }
+        });
+    }
+
+    private void writeDocument() {
+        requireNonNull(currentFile.get());
+        saveScheduler.save(snapshot());
+    }
+
+    private void writeChange(WalletJournal.Entry change) {
+        if (!settings().isJournalEnabled()) {
+            writeDocument();
+            return;
+        }
+
+        requireNonNull(currentFile.get());
+        saveScheduler.append(snapshot(), change);
+    }
+
+    private SaveScheduler.Snapshot snapshot() {
+        return new SaveScheduler.Snapshot(currentFile.get().toPath(), sessionKey, recordList,
+                settings().getWalletFormat());
+    }
+
+    private void replaceSessionKey(SessionKey key) {
+        var oldKey = sessionKey;
+        sessionKey = key;
+        // Search index of the previous wallet may still be written with the old key
+        searchIndexExecutor.execute(oldKey::close);
+    }
+
+    private void writeDocument(File file, SessionKey key) {
+        try (key) {
+            WalletFiles.write(file.toPath(), key, recordList, settings().getWalletFormat());
         } catch (Exception ex) {
             throw new RuntimeException(ex);
         }
     }
 
     private void onChangePassword() {
-        new PasswordDialog(this, currentFile.get(), true).showAndWait().ifPresent(password -> {
-            currentPassword = password;
+        new PasswordDialog(this, currentFile.get(), true).showAndWait().ifPresent(key -> {
+            saveScheduler.flush();
+
+            // Records decrypted lazily depend on the old key
+            var selected = getSelectedItem().map(WalletRecord::uuid);
+            recordList.setAll(recordList.stream().map(WalletFiles::detach).toList());
+            selected.flatMap(this::findRecordById).ifPresent(r -> cardListView.getSelectionModel().select(r));
+
+            replaceSessionKey(key);
+            deleteSearchIndex();
             writeDocument();
         });
     }
@@ -689,6 +844,18 @@ public final class MainWindowController extends Controller {
     @Override
     protected void onWindowHiding() {
         super.onWindowHiding();
+        searchPipeline.close();
+        saveSearchIndex();
+        saveScheduler.close();
+        searchIndexExecutor.shutdown();
+        try {
+            if (!searchIndexExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.severe("Timeout while waiting for search index to be saved");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        sessionKey.close();
         settings().saveWindowsSettings();
     }
 
@@ -727,26 +894,11 @@ public final class MainWindowController extends Controller {
         });
     }
 
-    private InputStream decypheredInputStream(InputStream inputStream, String password) throws IOException {
-        try (var outputStream = new ByteArrayOutputStream()) {
-            if (!password.isEmpty()) {
-                try (var cin = AES.aes256().getInputStream(inputStream, password)) {
-                    cin.transferTo(outputStream);
-                }
-            } else {
-                inputStream.transferTo(outputStream);
-            }
-            return new ByteArrayInputStream(outputStream.toByteArray());
-        }
-    }
-
     //
 
     private static SortedList<WalletRecord> recordSortedList(ObservableList<WalletRecord> list) {
         var sortedList = new SortedList<>(list);
-        sortedList.setComparator(COMPARE_BY_ACTIVE
-                .thenComparing(COMPARE_BY_FAVORITE)
-                .thenComparing(COMPARE_BY_NAME));
+        sortedList.setComparator(DEFAULT_ORDER);
         return sortedList;
     }
 
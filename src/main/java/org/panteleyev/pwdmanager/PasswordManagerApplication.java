@@ -21,6 +21,7 @@ import static javafx.application.Platform.runLater;
 import static org.panteleyev.pwdmanager.Constants.APP_TITLE;
 import static org.panteleyev.pwdmanager.GlobalContext.files;
 import static org.panteleyev.pwdmanager.GlobalContext.settings;
+import static org.panteleyev.pwdmanager.StartupTimer.phase;
 
 public final class PasswordManagerApplication extends Application {
     private static final Logger LOGGER = Logger.getLogger(PasswordManagerApplication.class.getName());
@@ -50,8 +51,16 @@ public final class PasswordManagerApplication extends Application {
 
     @Override
     public void start(Stage stage) throws Exception {
-        files().initialize();
-        settings().load();
+        // Not needed for files written by the application, compiled ahead in case validation is required
+        Serializer.precompileSchema();
+
+        try (var _ = phase("Files initialization")) {
+            files().initialize();
+        }
+        try (var _ = phase("Settings load")) {
+            settings().load();
+        }
+        Serializer.setValidationPolicy(settings().getValidationPolicy());
 
         var logProperties = LOG_PROPERTIES.replace("%FILE_PATTERN%",
                 files().getLogDirectory().resolve("PasswordManager.log").toString().replace("\\", "/"));
@@ -63,10 +72,29 @@ public final class PasswordManagerApplication extends Application {
 
         stage.setTitle(APP_TITLE);
 
-        var appImage = new Image(Objects.requireNonNull(getClass().getResourceAsStream(APP_ICON_PATH)));
-        stage.getIcons().add(appImage);
+        try (var _ = phase("Application icon")) {
+            var appImage = new Image(Objects.requireNonNull(getClass().getResourceAsStream(APP_ICON_PATH)));
+            stage.getIcons().add(appImage);
+        }
+
+        StartupParameters params;
+        try (var _ = phase("Password dialog")) {
+            params = getStartupParameters();
+        }
+        try (var _ = phase("Main window")) {
+            new MainWindowController(stage, params);
+        }
 
-        new MainWindowController(stage, getStartupParameters());
+        var firstLayout = phase("First layout");
+        var scene = stage.getScene();
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this);
+                firstLayout.close();
+                StartupTimer.finish();
+            }
+        });
         stage.show();
     }
 
@@ -99,11 +127,14 @@ public final class PasswordManagerApplication extends Application {
             return null;
         }
 
-        var password = new PasswordDialog(null, file, false).showAndWait().orElse(null);
-        if (password == null) {
+        var key = new PasswordDialog(null, file, false, true)
+                .measureKeyCheck("Key derivation")
+                .showAndWait()
+                .orElse(null);
+        if (key == null) {
             return null;
         }
 
-        return new StartupParameters(file, password, saveFileName);
+        return new StartupParameters(file, key, saveFileName);
     }
 }
@@ -1,5 +1,5 @@
 /*
- Copyright © 2017-2025 Petr Panteleyev
+ Copyright © 2017-2026 Petr Panteleyev
  SPDX-License-Identifier: BSD-2-Clause
  */
 package org.panteleyev.pwdmanager;
@@ -11,26 +11,35 @@ import org.panteleyev.pwdmanager.model.FieldType;
 import org.panteleyev.pwdmanager.model.Note;
 import org.panteleyev.pwdmanager.model.Picture;
 import org.panteleyev.pwdmanager.model.WalletRecord;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 import org.xml.sax.helpers.DefaultHandler;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import javax.xml.transform.stax.StAXSource;
+import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.util.Objects.requireNonNull;
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.SPACE;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
 import static org.panteleyev.pwdmanager.Constants.BUILD_INFO_BUNDLE;
 
 public class Serializer {
@@ -69,8 +78,9 @@ public class Serializer {
     private static final QName RECORDS = new QName("records");
 
     private static final String SCHEMA_URL = "/xsd/password-manager.xsd";
+    private static final int SAMPLE_RATE = 10;
 
-    private static final DocumentBuilder DOCUMENT_BUILDER;
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
     private static final DefaultHandler HANDLER = new DefaultHandler() {
         @Override
         public void error(SAXParseException e) throws SAXException {
@@ -78,21 +88,46 @@ public class Serializer {
         }
     };
 
+    private static volatile ValidationPolicy validationPolicy = ValidationPolicy.TRUSTED;
+
     static {
-        var schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-        try {
-            var schema = schemaFactory.newSchema(Serializer.class.getResource(SCHEMA_URL));
-            var factory = DocumentBuilderFactory.newInstance();
-            factory.setSchema(schema);
-            factory.setValidating(false);
-            DOCUMENT_BUILDER = factory.newDocumentBuilder();
-            DOCUMENT_BUILDER.setErrorHandler(HANDLER);
-        } catch (SAXException | ParserConfigurationException ex) {
-            // There should not be any exceptions so just fail.
-            throw new RuntimeException(ex);
+        INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Schema is compiled on first use.
+     */
+    private static final class SchemaHolder {
+        private static final Schema SCHEMA = compileSchema();
+
+        static Schema schema() {
+            return SCHEMA;
+        }
+
+        private static Schema compileSchema() {
+            var schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            try {
+                return schemaFactory.newSchema(Serializer.class.getResource(SCHEMA_URL));
+            } catch (SAXException ex) {
+                // There should not be any exceptions so just fail.
+                throw new RuntimeException(ex);
+            }
         }
     }
 
+    /**
+     * Starts schema compilation on a background thread, so the first document that needs validation does not
+     * wait for it.
+     */
+    public static void precompileSchema() {
+        Thread.ofPlatform().daemon().name("schema-compiler").start(SchemaHolder::schema);
+    }
+
+    public static void setValidationPolicy(ValidationPolicy policy) {
+        validationPolicy = requireNonNull(policy);
+    }
+
     public static void serialize(OutputStream out, List<WalletRecord> records) {
         try (var w = XMLStreamWriterWrapper.newInstance(out)) {
             w.document(WALLET, () -> {
@@ -107,15 +142,63 @@ public class Serializer {
         }
     }
 
+    /**
+     * Reads wallet records from the stream. The document is always validated against the schema.
+     *
+     * @param in input stream
+     * @return list of records
+     * @throws IOException  if stream cannot be read
+     * @throws SAXException if document is not a valid wallet
+     */
     public static List<WalletRecord> deserialize(InputStream in) throws IOException, SAXException {
-        // Paranoid lock
-        synchronized (DOCUMENT_BUILDER) {
-            var doc = DOCUMENT_BUILDER.parse(in);
+        return deserialize(in, false);
+    }
 
-            var rootElement = doc.getDocumentElement();
-            var records = rootElement.getElementsByTagName(RECORD.getLocalPart());
-            return deserializeRecords(records);
+    /**
+     * Reads wallet records from the stream. Records are built as parser events arrive, the document is
+     * validated against the schema in the same pass unless it is trusted and the validation policy allows
+     * skipping it. This method is thread-safe.
+     *
+     * @param in      input stream
+     * @param trusted true if document was written by this application and could not be modified since, e.g. it
+     *                was read from an authenticated container
+     * @return list of records
+     * @throws IOException  if stream cannot be read
+     * @throws SAXException if document is not a valid wallet
+     */
+    public static List<WalletRecord> deserialize(InputStream in, boolean trusted) throws IOException, SAXException {
+        var handler = new RecordHandler();
+        try {
+            var reader = new StreamReaderDelegate(INPUT_FACTORY.createXMLStreamReader(in)) {
+                @Override
+                public int next() throws XMLStreamException {
+                    var event = super.next();
+                    handler.onEvent(getParent(), event);
+                    return event;
+                }
+            };
+            if (needsValidation(trusted)) {
+                var validator = SchemaHolder.schema().newValidator();
+                validator.setErrorHandler(HANDLER);
+                validator.validate(new StAXSource(reader));
+            } else {
+                while (reader.hasNext()) {
+                    reader.next();
+                }
+            }
+        } catch (XMLStreamException | IllegalArgumentException ex) {
+            // Malformed values are only reported as conversion errors when validation is skipped
+            throw new SAXException(ex);
         }
+        return handler.records;
+    }
+
+    private static boolean needsValidation(boolean trusted) {
+        return !trusted || switch (validationPolicy) {
+            case STRICT -> true;
+            case SAMPLED -> ThreadLocalRandom.current().nextInt(SAMPLE_RATE) == 0;
+            case TRUSTED -> false;
+        };
     }
 
     private static void serializeRecord(XMLStreamWriterWrapper w, WalletRecord record) {
@@ -158,95 +241,130 @@ public class Serializer {
         ));
     }
 
-    private static List<WalletRecord> deserializeRecords(NodeList records) {
-        var list = new ArrayList<WalletRecord>(records.getLength());
+    /**
+     * Builds records from parser events. Attribute values are captured on start element and converted on end
+     * element, so malformed values are reported by the validator before they are parsed.
+     */
+    private static final class RecordHandler {
+        private final List<WalletRecord> records = new ArrayList<>();
+
+        private Map<String, String> recordAttributes;
+        private final List<Map<String, String>> fieldAttributes = new ArrayList<>();
+        private final StringBuilder text = new StringBuilder();
+        private final StringBuilder note = new StringBuilder();
+        private boolean hasNote;
+        private boolean inNote;
+
+        void onEvent(XMLStreamReader reader, int event) {
+            switch (event) {
+                case START_ELEMENT -> onStartElement(reader);
+                case END_ELEMENT -> onEndElement(reader);
+                case CHARACTERS, CDATA, SPACE -> {
+                    if (inNote) {
+                        note.append(reader.getText());
+                    } else if (recordAttributes != null) {
+                        text.append(reader.getText());
+                    }
+                }
+                default -> {
+                }
+            }
+        }
 
-        // children
-        for (int i = 0; i < records.getLength(); i++) {
-            var item = records.item(i);
+        private void onStartElement(XMLStreamReader reader) {
+            var name = reader.getLocalName();
+            if (RECORD.getLocalPart().equals(name)) {
+                recordAttributes = readAttributes(reader);
+                fieldAttributes.clear();
+                text.setLength(0);
+                note.setLength(0);
+                hasNote = false;
+            } else if (recordAttributes != null) {
+                if (FIELD.getLocalPart().equals(name)) {
+                    fieldAttributes.add(readAttributes(reader));
+                } else if (NOTE.getLocalPart().equals(name)) {
+                    hasNote = true;
+                    inNote = true;
+                }
+            }
+        }
 
-            if (item instanceof Element element) {
-                var recordClass = CardClass.of(element.getAttribute(ATTR_CLASS.getLocalPart()));
-                if (recordClass != null) {
-                    var record = switch (recordClass) {
-                        case CARD -> deserializeCard(element);
-                        case NOTE -> deserializeNote(element);
-                        case UNKNOWN -> null;
-                    };
-                    if (record != null) {
-                        list.add(record);
-                    }
+        private void onEndElement(XMLStreamReader reader) {
+            var name = reader.getLocalName();
+            if (NOTE.getLocalPart().equals(name)) {
+                inNote = false;
+            } else if (RECORD.getLocalPart().equals(name) && recordAttributes != null) {
+                var record = switch (CardClass.of(recordAttributes.get(ATTR_CLASS.getLocalPart()))) {
+                    case CARD -> deserializeCard(recordAttributes, fieldAttributes, note.toString());
+                    // for backward compatibility we also read text content if <note> child is missing
+                    case NOTE -> deserializeNote(recordAttributes, hasNote ? note.toString() : text.toString());
+                    case UNKNOWN -> null;
+                };
+                if (record != null) {
+                    records.add(record);
                 }
+                recordAttributes = null;
             }
         }
 
-        return list;
+        private static Map<String, String> readAttributes(XMLStreamReader reader) {
+            var attributes = new HashMap<String, String>();
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+            }
+            return attributes;
+        }
     }
 
-    private static Card deserializeCard(Element element) {
-        var uuid = readUuidAttribute(element);
-        var name = element.getAttribute(ATTR_NAME.getLocalPart());
-        var picture = Picture.of(element.getAttribute(ATTR_PICTURE.getLocalPart()));
-        var modified = Long.parseLong(element.getAttribute(ATTR_MODIFIED.getLocalPart()));
-        var favorite = Boolean.parseBoolean(element.getAttribute(ATTR_FAVORITE.getLocalPart()));
-        var active = readActiveAttribute(element);
+    private static Card deserializeCard(Map<String, String> attributes, List<Map<String, String>> fieldAttributes,
+            String note)
+    {
+        var uuid = readUuidAttribute(attributes);
+        var name = readAttribute(attributes, ATTR_NAME);
+        var picture = Picture.of(readAttribute(attributes, ATTR_PICTURE));
+        var modified = Long.parseLong(readAttribute(attributes, ATTR_MODIFIED));
+        var favorite = Boolean.parseBoolean(readAttribute(attributes, ATTR_FAVORITE));
+        var active = readActiveAttribute(attributes);
 
         // fields
-        var fList = element.getElementsByTagName(FIELD.getLocalPart());
-        var fields = new ArrayList<Field>(fList.getLength());
-        for (int i = 0; i < fList.getLength(); i++) {
-            var f = deserializeField((Element) fList.item(i));
-            fields.add(f);
-        }
-
-        // note
-        var note = "";
-        var notes = element.getElementsByTagName(NOTE.getLocalPart());
-        if (notes.getLength() > 0) {
-            var noteElement = (Element) notes.item(0);
-            note = noteElement.getTextContent();
+        var fields = new ArrayList<Field>(fieldAttributes.size());
+        for (var f : fieldAttributes) {
+            fields.add(deserializeField(f));
         }
 
         return new Card(uuid, modified, picture, name, fields, note, favorite, active);
     }
 
-    private static Field deserializeField(Element e) {
-        var name = e.getAttribute(ATTR_NAME.getLocalPart());
-        var type = FieldType.valueOf(e.getAttribute(ATTR_TYPE.getLocalPart()));
-        var value = Field.deserializeValue(type, e.getAttribute(ATTR_VALUE.getLocalPart()));
+    private static Field deserializeField(Map<String, String> attributes) {
+        var name = readAttribute(attributes, ATTR_NAME);
+        var type = FieldType.valueOf(readAttribute(attributes, ATTR_TYPE));
+        var value = Field.deserializeValue(type, readAttribute(attributes, ATTR_VALUE));
 
         return new Field(type, name, value);
     }
 
-    private static WalletRecord deserializeNote(Element element) {
-        var uuid = readUuidAttribute(element);
-        var name = element.getAttribute(ATTR_NAME.getLocalPart());
-        var modified = Long.parseLong(element.getAttribute(ATTR_MODIFIED.getLocalPart()));
-        var favorite = Boolean.parseBoolean(element.getAttribute(ATTR_FAVORITE.getLocalPart()));
-        var active = readActiveAttribute(element);
-
-        // note
-        var note = "";
-        var notes = element.getElementsByTagName(NOTE.getLocalPart());
-        if (notes.getLength() > 0) {
-            var noteElement = (Element) notes.item(0);
-            note = noteElement.getTextContent();
-        } else {
-            // for backward compatibility we also read text content if <note> child is missing
-            note = element.getTextContent();
-        }
+    private static WalletRecord deserializeNote(Map<String, String> attributes, String note) {
+        var uuid = readUuidAttribute(attributes);
+        var name = readAttribute(attributes, ATTR_NAME);
+        var modified = Long.parseLong(readAttribute(attributes, ATTR_MODIFIED));
+        var favorite = Boolean.parseBoolean(readAttribute(attributes, ATTR_FAVORITE));
+        var active = readActiveAttribute(attributes);
 
         return new Note(uuid, name, note, favorite, active, modified);
     }
 
-    private static boolean readActiveAttribute(Element element) {
+    private static String readAttribute(Map<String, String> attributes, QName name) {
+        return attributes.getOrDefault(name.getLocalPart(), "");
+    }
+
+    private static boolean readActiveAttribute(Map<String, String> attributes) {
         // For backward compatibility missing 'active' attribute means true
-        var activeElement = element.getAttribute(ATTR_ACTIVE.getLocalPart());
+        var activeElement = readAttribute(attributes, ATTR_ACTIVE);
         return activeElement.isBlank() || Boolean.parseBoolean(activeElement);
     }
 
-    private static UUID readUuidAttribute(Element element) {
-        var uuidString = element.getAttribute(ATTR_UUID.getLocalPart());
+    private static UUID readUuidAttribute(Map<String, String> attributes) {
+        var uuidString = readAttribute(attributes, ATTR_UUID);
         return uuidString.isEmpty() ? UUID.randomUUID() : UUID.fromString(uuidString);
     }
 }
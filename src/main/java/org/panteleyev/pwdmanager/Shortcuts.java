@@ -1,5 +1,5 @@
 /*
- Copyright © 2020-2025 Petr Panteleyev <petr@panteleyev.org>
+ Copyright © 2020-2026 Petr Panteleyev <petr@panteleyev.org>
  SPDX-License-Identifier: BSD-2-Clause
  */
 package org.panteleyev.pwdmanager;
@@ -28,6 +28,8 @@ public final class Shortcuts {
     public static final KeyCodeCombination SHORTCUT_ALT_S = new KeyCodeCombination(KeyCode.S, SHORTCUT_DOWN, ALT_DOWN);
 
     public static final KeyCodeCombination DELETE = new KeyCodeCombination(KeyCode.DELETE);
+    public static final KeyCodeCombination F3 = new KeyCodeCombination(KeyCode.F3);
+    public static final KeyCodeCombination SHIFT_F3 = new KeyCodeCombination(KeyCode.F3, SHIFT_DOWN);
 
     private Shortcuts() {
     }
@@ -1,10 +1,12 @@
 /*
- Copyright © 2025 Petr Panteleyev
+ Copyright © 2025-2026 Petr Panteleyev
  SPDX-License-Identifier: BSD-2-Clause
  */
 package org.panteleyev.pwdmanager;
 
+import org.panteleyev.pwdmanager.storage.SessionKey;
+
 import java.io.File;
 
-public record StartupParameters(File initialFile, String password, boolean saveFileName) {
+public record StartupParameters(File initialFile, SessionKey key, boolean saveFileName) {
 }
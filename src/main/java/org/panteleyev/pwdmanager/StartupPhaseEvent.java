@@ -0,0 +1,22 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event emitted for each application startup phase.
+ */
+@Name("org.panteleyev.pwdmanager.StartupPhase")
+@Label("Startup Phase")
+@Category("Password Manager")
+@Description("Application startup phase")
+@StackTrace(false)
+final class StartupPhaseEvent extends jdk.jfr.Event {
+    @Label("Phase")
+    String phase;
+}
@@ -0,0 +1,88 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Measures application startup phases. Each phase is emitted as {@link StartupPhaseEvent} flight recorder event,
+ * phases completed before {@link #finish()} are also written to the log once startup is complete. Phases may
+ * be nested and the same phase may be measured more than once.
+ */
+public final class StartupTimer {
+    private static final Logger LOGGER = Logger.getLogger(StartupTimer.class.getName());
+
+    private static final ConcurrentLinkedQueue<PhaseTime> PHASES = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean FINISHED = new AtomicBoolean(false);
+
+    private record PhaseTime(String name, long nanos) {
+    }
+
+    /**
+     * Measured phase, must be closed when the phase is complete.
+     */
+    public static final class Phase implements AutoCloseable {
+        private final String name;
+        private final long start = System.nanoTime();
+        private final StartupPhaseEvent event = new StartupPhaseEvent();
+
+        private Phase(String name) {
+            this.name = name;
+            event.begin();
+        }
+
+        @Override
+        public void close() {
+            var nanos = System.nanoTime() - start;
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = name;
+                event.commit();
+            }
+            if (!FINISHED.get()) {
+                PHASES.add(new PhaseTime(name, nanos));
+            }
+        }
+    }
+
+    private StartupTimer() {
+    }
+
+    public static Phase phase(String name) {
+        return new Phase(name);
+    }
+
+    /**
+     * Completes startup and logs the collected phases. Only the first call has effect.
+     */
+    public static void finish() {
+        if (!FINISHED.compareAndSet(false, true)) {
+            return;
+        }
+
+        var totals = new LinkedHashMap<String, long[]>();
+        for (var phase : PHASES) {
+            var total = totals.computeIfAbsent(phase.name(), _ -> new long[2]);
+            total[0] += phase.nanos();
+            total[1]++;
+        }
+        PHASES.clear();
+
+        var report = new StringBuilder("Startup phases:");
+        totals.forEach((name, total) -> {
+            report.append("\n    ").append(name).append(": ").append(total[0] / 1_000_000).append(" ms");
+            if (total[1] > 1) {
+                report.append(" (").append(total[1]).append(" times)");
+            }
+        });
+        ProcessHandle.current().info().startInstant().ifPresent(start ->
+                report.append("\n    Since process start: ")
+                        .append(Duration.between(start, Instant.now()).toMillis()).append(" ms"));
+        LOGGER.info(report::toString);
+    }
+}
@@ -1,15 +1,15 @@
 /*
- Copyright © 2021-2024 Petr Panteleyev <petr@panteleyev.org>
+ Copyright © 2021-2026 Petr Panteleyev <petr@panteleyev.org>
  SPDX-License-Identifier: BSD-2-Clause
  */
 package org.panteleyev.pwdmanager;
 
-import java.io.BufferedReader;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 
 import static java.util.Objects.requireNonNull;
@@ -32,8 +32,12 @@ public final class TemplateEngine {
     }
 
     private static final String TEMPLATE_PATH = "/templates/";
+    private static final String PLACEHOLDER_START = "${";
+    private static final String PLACEHOLDER_END = "}";
     private static final TemplateEngine ENGINE = new TemplateEngine();
 
+    private final Map<Template, List<Segment>> compiled = new EnumMap<>(Template.class);
+
     private TemplateEngine() {
     }
 
@@ -42,21 +46,63 @@ public final class TemplateEngine {
     }
 
     public byte[] process(Template template, Map<String, ?> model) {
-        try (var in = new BufferedReader(new InputStreamReader(
-                requireNonNull(getClass().getResourceAsStream(TEMPLATE_PATH + template.getFileName())))
-        ); var out = new ByteArrayOutputStream(); var writer = new OutputStreamWriter(out)) {
-            while (in.ready()) {
-                var string = in.readLine();
-                for (var e : model.entrySet()) {
-                    string = string.replace("${" + e.getKey() + "}", e.getValue().toString());
+        var result = new StringBuilder();
+        for (var segment : compiled(template)) {
+            switch (segment) {
+                case Literal(var text) -> result.append(text);
+                case Placeholder(var name) -> {
+                    var value = model.get(name);
+                    // Unknown placeholders are left as is
+                    result.append(value == null ? PLACEHOLDER_START + name + PLACEHOLDER_END : value.toString());
                 }
-                writer.append(string);
-                writer.append('\n');
             }
-            writer.flush();
-            return out.toByteArray();
+        }
+        return result.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private synchronized List<Segment> compiled(Template template) {
+        return compiled.computeIfAbsent(template, t -> compile(load(t)));
+    }
+
+    private String load(Template template) {
+        try (var in = requireNonNull(getClass().getResourceAsStream(TEMPLATE_PATH + template.getFileName()))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
         } catch (IOException ex) {
             throw new UncheckedIOException(ex);
         }
     }
+
+    /**
+     * Splits template text into literal text and placeholders, so processing does not search the text.
+     *
+     * @param text template text
+     * @return segments
+     */
+    static List<Segment> compile(String text) {
+        var segments = new ArrayList<Segment>();
+        var position = 0;
+        while (position < text.length()) {
+            var start = text.indexOf(PLACEHOLDER_START, position);
+            var end = start < 0 ? -1 : text.indexOf(PLACEHOLDER_END, start + PLACEHOLDER_START.length());
+            if (end < 0) {
+                segments.add(new Literal(text.substring(position)));
+                break;
+            }
+            if (start > position) {
+                segments.add(new Literal(text.substring(position, start)));
+            }
+            segments.add(new Placeholder(text.substring(start + PLACEHOLDER_START.length(), end)));
+            position = end + PLACEHOLDER_END.length();
+        }
+        return List.copyOf(segments);
+    }
+
+    sealed interface Segment {
+    }
+
+    record Literal(String text) implements Segment {
+    }
+
+    record Placeholder(String name) implements Segment {
+    }
 }
@@ -0,0 +1,127 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.panteleyev.pwdmanager.model.WalletRecord;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Positions of records in a list by UUID. The owner of the list reports every change, or the index follows an
+ * observable list itself. Records after a change that shifts positions are renumbered lazily on the next lookup that
+ * needs them, so a series of changes followed by lookups costs a single pass over the list. A lookup during a change
+ * that was not reported yet checks the record at the stored position and renumbers the list if it does not match.
+ */
+final class UuidIndex {
+    private final List<? extends WalletRecord> records;
+    private final Map<UUID, Integer> positions = new HashMap<>();
+    // Positions of records before this one are valid
+    private int validTo;
+
+    /**
+     * Creates index of the list. Current records of the list are indexed on the first lookup.
+     *
+     * @param records list of records with unique UUIDs
+     */
+    UuidIndex(List<? extends WalletRecord> records) {
+        this.records = records;
+    }
+
+    /**
+     * Creates index that follows changes of the list. It must be created before other listeners of the list that
+     * look records up, so that positions are updated before these listeners run.
+     *
+     * @param records list of records with unique UUIDs
+     * @return index
+     */
+    static UuidIndex observe(ObservableList<? extends WalletRecord> records) {
+        var index = new UuidIndex(records);
+        records.addListener(index::onChanged);
+        return index;
+    }
+
+    /**
+     * Returns position of the record with the UUID.
+     *
+     * @param uuid record UUID
+     * @return position or -1 if there is no such record
+     */
+    int indexOf(UUID uuid) {
+        var position = positions.get(uuid);
+        if (position != null && position < validTo) {
+            if (isAt(position, uuid)) {
+                return position;
+            }
+            // The list was changed and the change is not reported yet
+            validTo = 0;
+        }
+        if (validTo < records.size()) {
+            for (int i = validTo; i < records.size(); i++) {
+                positions.put(records.get(i).uuid(), i);
+            }
+            validTo = records.size();
+            position = positions.get(uuid);
+        }
+        return position != null && isAt(position, uuid) ? position : -1;
+    }
+
+    /**
+     * Returns record with the UUID.
+     *
+     * @param uuid record UUID
+     * @return record
+     */
+    Optional<WalletRecord> get(UUID uuid) {
+        var position = indexOf(uuid);
+        return position < 0 ? Optional.empty() : Optional.of(records.get(position));
+    }
+
+    /**
+     * Updates the index after records of the list were replaced. The list must already contain added records.
+     *
+     * @param from      position of the change
+     * @param removed   removed records
+     * @param addedSize number of records added at the position
+     */
+    void replaced(int from, List<? extends WalletRecord> removed, int addedSize) {
+        for (var record : removed) {
+            positions.remove(record.uuid());
+        }
+        for (int i = from; i < from + addedSize; i++) {
+            positions.put(records.get(i).uuid(), i);
+        }
+        if (removed.size() != addedSize) {
+            // Old positions of shifted records may look valid if the list grew
+            validTo = Math.min(validTo, from + Math.min(removed.size(), addedSize));
+        }
+    }
+
+    /**
+     * Updates the index after records starting from the position were reordered.
+     *
+     * @param from position of the first reordered record
+     */
+    void permuted(int from) {
+        validTo = Math.min(validTo, from);
+    }
+
+    private boolean isAt(int position, UUID uuid) {
+        return position < records.size() && records.get(position).uuid().equals(uuid);
+    }
+
+    private void onChanged(ListChangeListener.Change<? extends WalletRecord> change) {
+        while (change.next()) {
+            if (change.wasPermutated()) {
+                permuted(change.getFrom());
+            } else {
+                replaced(change.getFrom(), change.getRemoved(), change.getAddedSize());
+            }
+        }
+    }
+}
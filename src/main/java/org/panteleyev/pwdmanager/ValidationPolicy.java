@@ -0,0 +1,30 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager;
+
+/**
+ * Schema validation of wallet documents. Documents that were not written by this application are always
+ * validated, the policy defines what happens to trusted ones, i.e. read from authenticated containers.
+ */
+public enum ValidationPolicy {
+    /**
+     * Every document is validated.
+     */
+    STRICT,
+    /**
+     * Trusted documents are validated occasionally.
+     */
+    SAMPLED,
+    /**
+     * Trusted documents are not validated.
+     */
+    TRUSTED;
+
+    public static ValidationPolicy of(String value) {
+        try {
+            return ValidationPolicy.valueOf(value);
+        } catch (Exception ex) {
+            return TRUSTED;
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- Copyright © 2021-2024 Petr Panteleyev <petr@panteleyev.org>
+ Copyright © 2021-2026 Petr Panteleyev <petr@panteleyev.org>
  SPDX-License-Identifier: BSD-2-Clause
  */
 package org.panteleyev.pwdmanager.bundles;
@@ -94,6 +94,24 @@ public final class Internationalization {
     public static final String I18N_SURE_TO_FINALLY_DELETE = "I18N_SURE_TO_FINALLY_DELETE";
     public static final String I18N_SURE_TO_PURGE = "I18N_SURE_TO_PURGE";
     public static final String I18N_SURE_TO_DELETE_FIELD = "I18N_SURE_TO_DELETE_FIELD";
+    public static final String I18N_STORAGE = "I18N_STORAGE";
+    public static final String I18N_JOURNAL = "I18N_JOURNAL";
+    public static final String I18N_FILE_FORMAT = "I18N_FILE_FORMAT";
+    public static final String I18N_KEY_DERIVATION = "I18N_KEY_DERIVATION";
+    public static final String I18N_ITERATIONS = "I18N_ITERATIONS";
+    public static final String I18N_UNLOCK_TIME = "I18N_UNLOCK_TIME";
+    public static final String I18N_CALIBRATE = "I18N_CALIBRATE";
+    public static final String I18N_WRONG_PASSWORD = "I18N_WRONG_PASSWORD";
+    public static final String I18N_XML_VALIDATION = "I18N_XML_VALIDATION";
+    public static final String I18N_SEARCH_SYNTAX = "I18N_SEARCH_SYNTAX";
+    public static final String I18N_PREVIOUS_MATCH = "I18N_PREVIOUS_MATCH";
+    public static final String I18N_NEXT_MATCH = "I18N_NEXT_MATCH";
+    public static final String I18N_FORMAT_XML = "I18N_FORMAT_XML";
+    public static final String I18N_FORMAT_BINARY = "I18N_FORMAT_BINARY";
+    public static final String I18N_FORMAT_INDEXED = "I18N_FORMAT_INDEXED";
+    public static final String I18N_VALIDATION_STRICT = "I18N_VALIDATION_STRICT";
+    public static final String I18N_VALIDATION_SAMPLED = "I18N_VALIDATION_SAMPLED";
+    public static final String I18N_VALIDATION_TRUSTED = "I18N_VALIDATION_TRUSTED";
 
     private Internationalization() {
     }
@@ -1,5 +1,5 @@
 /*
- Copyright © 2021-2024 Petr Panteleyev <petr@panteleyev.org>
+ Copyright © 2021-2026 Petr Panteleyev <petr@panteleyev.org>
  SPDX-License-Identifier: BSD-2-Clause
  */
 package org.panteleyev.pwdmanager.bundles;
@@ -10,6 +10,7 @@ import static org.panteleyev.pwdmanager.bundles.Internationalization.I18M_FIELDS
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_ACTION;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_ADD;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_BACKGROUND;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_CALIBRATE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_CANCEL_BUTTON;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_CARD;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_CARD_NUMBER;
@@ -39,9 +40,13 @@ import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_FAVORI
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_FIELD_NAME;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_FIELD_VALUE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_FILE;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_FILE_FORMAT;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_FILTER;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_FONTS;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_FOREGROUND;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_FORMAT_BINARY;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_FORMAT_INDEXED;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_FORMAT_XML;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_GENERATE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_HELP;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_HELP_ABOUT;
@@ -49,6 +54,9 @@ import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_ICON;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_IMPORT;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_ISSUED;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_ISSUER;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_ITERATIONS;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_JOURNAL;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_KEY_DERIVATION;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_LENGTH;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_LOGIN;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_LOWER_CASE;
@@ -58,6 +66,7 @@ import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_NEW_CA
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_NEW_FIELD;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_NEW_FILE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_NEW_NOTE;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_NEXT_MATCH;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_NOTE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_NOTES;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_NOTHING_TO_IMPORT;
@@ -70,14 +79,17 @@ import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_PASSWO
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_PASTE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_PHONE_NUMBER;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_PLATE;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_PREVIOUS_MATCH;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_PROPERTIES;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_PURGE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_REGISTRATION;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_REPEAT;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_RESTORE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_SAVE;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_SEARCH_SYNTAX;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_SHOW_DELETED;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_SKIP;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_STORAGE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_SURE_TO_DELETE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_SURE_TO_DELETE_FIELD;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_SURE_TO_FINALLY_DELETE;
@@ -90,11 +102,17 @@ import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_TITLE_
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_TOOLS;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_TYPE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_UNABLE_TO_READ_FILE;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_UNLOCK_TIME;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_UP;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_UPDATED;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_UPPER_CASE;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_VALIDATION_SAMPLED;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_VALIDATION_STRICT;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_VALIDATION_TRUSTED;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_VALID_UNTIL;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_VIEW;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_WRONG_PASSWORD;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_XML_VALIDATION;
 
 public class UiBundle extends ListResourceBundle {
     @Override
@@ -188,7 +206,26 @@ public class UiBundle extends ListResourceBundle {
                 {I18N_SURE_TO_DELETE, "Are you sure to delete \"%s\"?"},
                 {I18N_SURE_TO_FINALLY_DELETE, "Are you sure to finally delete \"%s\"?"},
                 {I18N_SURE_TO_PURGE, "Are you sure to purge all deleted items?"},
-                {I18N_SURE_TO_DELETE_FIELD, "Are you sure to delete field \"%s\"?"}
+                {I18N_SURE_TO_DELETE_FIELD, "Are you sure to delete field \"%s\"?"},
+                {I18N_STORAGE, "Storage"},
+                {I18N_JOURNAL, "Journal changes"},
+                {I18N_FILE_FORMAT, "File format"},
+                {I18N_KEY_DERIVATION, "Key derivation"},
+                {I18N_ITERATIONS, "Iterations"},
+                {I18N_UNLOCK_TIME, "Unlock time, ms"},
+                {I18N_CALIBRATE, "Calibrate"},
+                {I18N_WRONG_PASSWORD, "Wrong password"},
+                {I18N_XML_VALIDATION, "XML validation"},
+                {I18N_SEARCH_SYNTAX, "Search by text or\nname:bank, field:login=john, type:LINK, picture:VISA,\n"
+                        + "is:favorite, is:deleted, modified:>2025-01-01,\nAND, OR, NOT"},
+                {I18N_PREVIOUS_MATCH, "Previous match"},
+                {I18N_NEXT_MATCH, "Next match"},
+                {I18N_FORMAT_XML, "XML"},
+                {I18N_FORMAT_BINARY, "Binary"},
+                {I18N_FORMAT_INDEXED, "Indexed"},
+                {I18N_VALIDATION_STRICT, "Strict"},
+                {I18N_VALIDATION_SAMPLED, "Sampled"},
+                {I18N_VALIDATION_TRUSTED, "Skip trusted"}
         };
     }
 }
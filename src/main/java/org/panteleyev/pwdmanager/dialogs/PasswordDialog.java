@@ -3,6 +3,9 @@
 package org.panteleyev.pwdmanager.dialogs;
 
 import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.scene.Cursor;
+import javafx.scene.control.Button;
 import javafx.scene.control.Control;
 import javafx.scene.control.PasswordField;
 import org.controlsfx.validation.ValidationResult;
@@ -10,11 +13,17 @@ import org.controlsfx.validation.ValidationSupport;
 import org.controlsfx.validation.Validator;
 import org.panteleyev.fx.BaseDialog;
 import org.panteleyev.fx.Controller;
+import org.panteleyev.pwdmanager.StartupTimer;
+import org.panteleyev.pwdmanager.storage.SessionKey;
+import org.panteleyev.pwdmanager.storage.WalletFiles;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static javafx.scene.control.ButtonType.OK;
 import static org.panteleyev.fx.factories.LabelFactory.label;
@@ -28,15 +37,34 @@ import static org.panteleyev.pwdmanager.Styles.STYLE_GRID_PANE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_FILE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_PASSWORD;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_REPEAT;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_WRONG_PASSWORD;
 
-public final class PasswordDialog extends BaseDialog<String> {
+public final class PasswordDialog extends BaseDialog<SessionKey> {
     private final ValidationSupport validation = new ValidationSupport();
 
     private final PasswordField passwordEdit = new PasswordField();
     private final PasswordField passwordEdit2 = new PasswordField();
 
+    private final File file;
+    private SessionKey verifiedKey;
+    private String rejectedPassword;
+    private String keyCheckPhase;
+
     public PasswordDialog(Controller owner, File file, boolean change) {
+        this(owner, file, change, false);
+    }
+
+    /**
+     * Creates password dialog.
+     *
+     * @param owner  owner
+     * @param file   wallet file
+     * @param change true if new password is entered and must be repeated
+     * @param verify true if password must be checked against the existing file before the dialog is closed
+     */
+    public PasswordDialog(Controller owner, File file, boolean change, boolean verify) {
         super(owner, settings().getDialogCssFileUrl());
+        this.file = file;
 
         setTitle(string(UI_BUNDLE, I18N_PASSWORD));
 
@@ -52,17 +80,38 @@ public final class PasswordDialog extends BaseDialog<String> {
 
         createDefaultButtons(UI_BUNDLE);
 
-        setResultConverter(buttonType -> OK.equals(buttonType) ? passwordEdit.getText() : null);
+        setResultConverter(buttonType -> {
+            if (!OK.equals(buttonType)) {
+                return null;
+            }
+            return verify ? verifiedKey : newSessionKey(passwordEdit.getText());
+        });
 
         if (change) {
             Platform.runLater(this::createValidationSupport);
         }
+        if (verify) {
+            getDialogPane().lookupButton(OK).addEventFilter(ActionEvent.ACTION, this::onVerify);
+            Platform.runLater(this::createVerificationSupport);
+        }
         Platform.runLater(() -> {
             passwordEdit.requestFocus();
             centerOnScreen();
         });
     }
 
+    /**
+     * Measures password check as a startup phase. The check derives the key, so this is where key derivation
+     * happens when a wallet is opened on startup.
+     *
+     * @param phase phase name
+     * @return this dialog
+     */
+    public PasswordDialog measureKeyCheck(String phase) {
+        keyCheckPhase = phase;
+        return this;
+    }
+
     private void createValidationSupport() {
         Validator<String> v1 = (Control c, String _) -> {
             // Main password invalidates repeated password
@@ -81,4 +130,56 @@ public final class PasswordDialog extends BaseDialog<String> {
         validation.registerValidator(passwordEdit, v1);
         validation.registerValidator(passwordEdit2, v2);
     }
+
+    private void createVerificationSupport() {
+        validation.registerValidator(passwordEdit, (Control c, String value) ->
+                ValidationResult.fromErrorIf(c, string(UI_BUNDLE, I18N_WRONG_PASSWORD),
+                        Objects.equals(value, rejectedPassword)));
+    }
+
+    private void onVerify(ActionEvent event) {
+        if (verifiedKey != null) {
+            return;
+        }
+        event.consume();
+
+        // Key derivation is slow by design and must not block the dialog
+        var password = passwordEdit.getText();
+        var key = newSessionKey(password);
+        setVerifying(true);
+        var phase = keyCheckPhase;
+        CompletableFuture.supplyAsync(() -> {
+            try (var _ = phase == null ? null : StartupTimer.phase(phase)) {
+                return WalletFiles.checkKey(file.toPath(), key);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }).whenCompleteAsync((valid, _) -> {
+            setVerifying(false);
+            if (!isShowing()) {
+                key.close();
+            } else if (Boolean.FALSE.equals(valid)) {
+                key.close();
+                rejectedPassword = password;
+                validation.revalidate();
+                passwordEdit.selectAll();
+                passwordEdit.requestFocus();
+            } else {
+                // Read errors are reported when the file is opened
+                verifiedKey = key;
+                ((Button) getDialogPane().lookupButton(OK)).fire();
+            }
+        }, Platform::runLater);
+    }
+
+    private void setVerifying(boolean verifying) {
+        passwordEdit.setDisable(verifying);
+        getDialogPane().lookupButton(OK).setDisable(verifying);
+        getDialogPane().setCursor(verifying ? Cursor.WAIT : Cursor.DEFAULT);
+    }
+
+    private static SessionKey newSessionKey(String password) {
+        return new SessionKey(password, settings().getKeyDerivationAlgorithm(),
+                settings().getKeyDerivationIterations());
+    }
 }
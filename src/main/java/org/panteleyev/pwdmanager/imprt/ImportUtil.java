@@ -1,5 +1,5 @@
 /*
- Copyright © 2021-2024 Petr Panteleyev <petr@panteleyev.org>
+ Copyright © 2021-2026 Petr Panteleyev <petr@panteleyev.org>
  SPDX-License-Identifier: BSD-2-Clause
  */
 package org.panteleyev.pwdmanager.imprt;
@@ -8,41 +8,74 @@ import org.panteleyev.pwdmanager.model.ImportAction;
 import org.panteleyev.pwdmanager.model.ImportRecord;
 import org.panteleyev.pwdmanager.model.WalletRecord;
 
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
 
 public final class ImportUtil {
+    // Smaller import sets are not worth splitting
+    static final int PARALLEL_THRESHOLD = 4_096;
+
     private ImportUtil() {
     }
 
     public static List<ImportRecord> calculateImport(Collection<? extends WalletRecord> existing, Collection<?
             extends WalletRecord> toImport) {
-        var result = new ArrayList<ImportRecord>(toImport.size());
-        for (var card : toImport) {
-            existing.stream()
-                    .filter(x -> x.uuid().equals(card.uuid()))
-                    .findAny()
-                    .ifPresentOrElse(
-                            found -> processUpdate(result, found, card),
-                            () -> processAddition(result, card)
-                    );
+        return calculateImport(existing, toImport, false);
+    }
+
+    /**
+     * Calculates changes required to import records. Records are matched by UUID through a hash table of the
+     * existing records, so the cost is linear in the size of both collections. In parallel mode records to import
+     * are split into partitions checked in the common fork/join pool, import sets smaller than
+     * {@link #PARALLEL_THRESHOLD} are checked sequentially. Changes are returned in the order of records to import
+     * in both modes.
+     *
+     * @param existing records of the wallet
+     * @param toImport records to import
+     * @param parallel if records to import may be checked in parallel
+     * @return import changes
+     */
+    public static List<ImportRecord> calculateImport(Collection<? extends WalletRecord> existing,
+            Collection<? extends WalletRecord> toImport, boolean parallel)
+    {
+        var byUuid = new HashMap<UUID, WalletRecord>(existing.size() * 4 / 3 + 1);
+        for (var record : existing) {
+            // The first record wins as it did with a linear search
+            byUuid.putIfAbsent(record.uuid(), record);
         }
-        return result;
+
+        var stream = parallel && toImport.size() >= PARALLEL_THRESHOLD
+                ? toImport.parallelStream()
+                : toImport.stream();
+        return stream
+                .map(card -> calculateImport(byUuid, card))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private static ImportRecord calculateImport(Map<UUID, WalletRecord> existing, WalletRecord toImport) {
+        var found = existing.get(toImport.uuid());
+        return found == null ? processAddition(toImport) : processUpdate(found, toImport);
     }
 
-    private static void processUpdate(List<ImportRecord> importRecords, WalletRecord existing, WalletRecord toImport) {
+    private static ImportRecord processUpdate(WalletRecord existing, WalletRecord toImport) {
         if (existing.modified() < toImport.modified()) {
             var action = existing.active() == toImport.active() ?
                     ImportAction.REPLACE : toImport.active() ? ImportAction.RESTORE : ImportAction.DELETE;
-            importRecords.add(new ImportRecord(action, existing, toImport));
+            return new ImportRecord(action, existing, toImport);
         }
+        return null;
     }
 
-    private static void processAddition(List<ImportRecord> importRecords, WalletRecord toImport) {
+    private static ImportRecord processAddition(WalletRecord toImport) {
         if (toImport.active()) {
             // Inactive cards will not be added
-            importRecords.add(new ImportRecord(toImport));
+            return new ImportRecord(toImport);
         }
+        return null;
     }
 }
@@ -1,5 +1,5 @@
 /*
- Copyright © 2017-2023 Petr Panteleyev <petr@panteleyev.org>
+ Copyright © 2017-2026 Petr Panteleyev <petr@panteleyev.org>
  SPDX-License-Identifier: BSD-2-Clause
  */
 package org.panteleyev.pwdmanager.model;
@@ -10,6 +10,8 @@ import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import org.panteleyev.pwdmanager.cells.PictureListCell;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.Comparator;
 
@@ -89,23 +91,26 @@ public enum Picture {
     public static final int SMALL_IMAGE_SIZE = 24;
     public static final int BIG_IMAGE_SIZE = 48;
 
-    private final Image image;
-    private final Image bigImage;
-
-    Picture() {
-        var res = name().toLowerCase() + ".png";
-        var bigRes = name().toLowerCase() + "-48.png";
-
-        image = new Image(requireNonNull(getClass().getResourceAsStream("/images/" + res)));
-        bigImage = new Image(requireNonNull(getClass().getResourceAsStream("/images/" + bigRes)));
-    }
+    // Images are decoded on first use, so only pictures that are actually shown are ever loaded
+    private volatile Image image;
+    private volatile Image bigImage;
 
     public Image getImage() {
-        return image;
+        var result = image;
+        if (result == null) {
+            result = loadImage(name().toLowerCase() + ".png");
+            image = result;
+        }
+        return result;
     }
 
     public Image getBigImage() {
-        return bigImage;
+        var result = bigImage;
+        if (result == null) {
+            result = loadImage(name().toLowerCase() + "-48.png");
+            bigImage = result;
+        }
+        return result;
     }
 
     public static void setupComboBox(ComboBox<Picture> comboBox) {
@@ -128,6 +133,14 @@ public enum Picture {
         }
     }
 
+    private static Image loadImage(String resource) {
+        try (var in = Picture.class.getResourceAsStream("/images/" + resource)) {
+            return new Image(requireNonNull(in, resource));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
     public static ImageView imageView(Image image, int width, int height) {
         var view = new ImageView(image);
         view.setFitWidth(width);
@@ -0,0 +1,178 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.search;
+
+/**
+ * Scores record texts against a normalized query. The first text is the record name, the rest are field values
+ * and notes. Exact matches always score higher than fuzzy ones:
+ * <ol>
+ *     <li>name starts with the query</li>
+ *     <li>a word of the name starts with the query</li>
+ *     <li>name contains the query</li>
+ *     <li>field value or note contains the query</li>
+ *     <li>a word of the name starts with the query with up to {@link #maxDistance(int)} typos</li>
+ *     <li>a word of a field value or note starts with the query with typos</li>
+ * </ol>
+ * Fuzzy scores decrease with the edit distance.
+ */
+final class FuzzyMatcher {
+    static final int NO_MATCH = 0;
+
+    static final int NAME_PREFIX = 1000;
+    static final int NAME_WORD_PREFIX = 800;
+    static final int NAME_SUBSTRING = 600;
+    static final int TEXT_SUBSTRING = 400;
+    static final int NAME_FUZZY = 300;
+    static final int TEXT_FUZZY = 150;
+    static final int DISTANCE_PENALTY = 50;
+    // Structured query match without text terms
+    static final int ATTRIBUTE_MATCH = 1;
+
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int TWO_TYPOS_LENGTH = 8;
+
+    private FuzzyMatcher() {
+    }
+
+    /**
+     * Returns number of typos tolerated in the query of the given length.
+     *
+     * @param length query length
+     * @return maximum edit distance
+     */
+    static int maxDistance(int length) {
+        if (length < MIN_FUZZY_LENGTH) {
+            return 0;
+        }
+        return length < TWO_TYPOS_LENGTH ? 1 : 2;
+    }
+
+    static int score(String[] texts, String query) {
+        var score = exactScore(texts, query);
+        return score != NO_MATCH ? score : fuzzyScore(texts, query);
+    }
+
+    static int exactScore(String[] texts, String query) {
+        var name = texts[0];
+        var position = name.indexOf(query);
+        if (position == 0) {
+            return NAME_PREFIX;
+        }
+        while (position > 0) {
+            if (!Character.isLetterOrDigit(name.charAt(position - 1))) {
+                return NAME_WORD_PREFIX;
+            }
+            position = name.indexOf(query, position + 1);
+        }
+        if (name.contains(query)) {
+            return NAME_SUBSTRING;
+        }
+        for (int i = 1; i < texts.length; i++) {
+            if (texts[i].contains(query)) {
+                return TEXT_SUBSTRING;
+            }
+        }
+        return NO_MATCH;
+    }
+
+    static int fuzzyScore(String[] texts, String query) {
+        var maxDistance = maxDistance(query.length());
+        if (maxDistance == 0) {
+            return NO_MATCH;
+        }
+
+        var nameDistance = wordDistance(texts[0], query, maxDistance);
+        if (nameDistance <= maxDistance) {
+            return NAME_FUZZY - DISTANCE_PENALTY * nameDistance;
+        }
+        var textDistance = maxDistance + 1;
+        for (int i = 1; i < texts.length && textDistance > 0; i++) {
+            textDistance = Math.min(textDistance, wordDistance(texts[i], query, maxDistance));
+        }
+        return textDistance <= maxDistance ? TEXT_FUZZY - DISTANCE_PENALTY * textDistance : NO_MATCH;
+    }
+
+    /**
+     * Returns the smallest edit distance between the query and a prefix of the text starting at a word boundary.
+     *
+     * @return distance or {@code maxDistance + 1} if all distances exceed the limit
+     */
+    private static int wordDistance(String text, String query, int maxDistance) {
+        var result = maxDistance + 1;
+        for (int start = 0; start < text.length() && result > 0; start++) {
+            if (Character.isLetterOrDigit(text.charAt(start))
+                    && (start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1))))
+            {
+                result = Math.min(result, prefixDistance(query, text, start, Math.min(result - 1, maxDistance)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the smallest Levenshtein distance between the query and a prefix of the text starting at the
+     * offset. Calculation stops as soon as the distance is known to exceed the limit.
+     *
+     * @return distance or {@code maxDistance + 1} if it exceeds the limit
+     */
+    static int prefixDistance(String query, String text, int offset, int maxDistance) {
+        var distances = prefixDistances(query, text, offset, maxDistance);
+        var result = maxDistance + 1;
+        for (var distance : distances) {
+            result = Math.min(result, distance);
+        }
+        return result;
+    }
+
+    /**
+     * Returns length of the prefix of the text starting at the offset that is closest to the query, the longest
+     * one if there are several.
+     *
+     * @return length or -1 if the distance exceeds the limit
+     */
+    static int prefixLength(String query, String text, int offset, int maxDistance) {
+        var distances = prefixDistances(query, text, offset, maxDistance);
+        var result = -1;
+        var best = maxDistance + 1;
+        for (int length = 0; length < distances.length; length++) {
+            if (distances[length] <= best) {
+                best = distances[length];
+                result = length;
+            }
+        }
+        return best <= maxDistance ? result : -1;
+    }
+
+    /**
+     * Returns Levenshtein distances between the query and prefixes of the text starting at the offset, indexed
+     * by prefix length.
+     *
+     * @return distances, empty if all of them exceed the limit
+     */
+    private static int[] prefixDistances(String query, String text, int offset, int maxDistance) {
+        var columns = Math.min(text.length() - offset, query.length() + maxDistance);
+        var previous = new int[columns + 1];
+        var current = new int[columns + 1];
+        for (int j = 0; j <= columns; j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= query.length(); i++) {
+            current[0] = i;
+            var rowMin = i;
+            var c = query.charAt(i - 1);
+            for (int j = 1; j <= columns; j++) {
+                var cost = c == text.charAt(offset + j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1], previous[j]) + 1, previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxDistance) {
+                return new int[0];
+            }
+            var swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous;
+    }
+}
@@ -0,0 +1,372 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Positional full-text index of a single note.
+ * <p>
+ * Text is split into words, i.e. runs of letters and digits. Every lower case word maps to ascending offsets of
+ * its occurrences. A query is looked up at the start of a word: its first word is a prefix of the text word, the
+ * rest of the query is compared with the text that follows. Only when there are no such matches, the text is
+ * scanned for the query anywhere and then for words starting with the query with typos. This way every note found
+ * by {@link SearchIndex}, which matches text anywhere and tolerates typos, has its matches.
+ * <p>
+ * When the text is edited, only words around the changed region are split again. Offsets of other words are
+ * shifted lazily: edits are logged and applied to a word when it is looked up, the log is applied to all words
+ * once it gets long. An edit costs the size of the region, not the size of the note.
+ */
+public final class NoteIndex {
+    /**
+     * Match in the text.
+     *
+     * @param start start offset
+     * @param end   end offset, exclusive
+     */
+    public record Match(int start, int end) {
+    }
+
+    private static final int MAX_PENDING_EDITS = 256;
+
+    private final StringBuilder text;
+    private final NavigableMap<String, Offsets> words = new TreeMap<>();
+    private final List<Edit> edits = new ArrayList<>();
+
+    /**
+     * Offsets within {@code [from, to)} are removed, offsets after the range are shifted by delta.
+     */
+    private record Edit(int from, int to, int delta) {
+    }
+
+    /**
+     * Ascending word offsets.
+     */
+    private static final class Offsets {
+        private int[] values = new int[2];
+        private int size;
+        // Number of logged edits applied to the offsets
+        private int applied;
+
+        Offsets(int applied) {
+            this.applied = applied;
+        }
+
+        void add(int offset) {
+            var index = Arrays.binarySearch(values, 0, size, offset);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = offset;
+            size++;
+        }
+
+        /**
+         * Removes offsets within {@code [from, to)} and shifts offsets after the range.
+         */
+        void edit(int from, int to, int delta) {
+            var count = 0;
+            for (int i = 0; i < size; i++) {
+                var offset = values[i];
+                if (offset < from) {
+                    values[count++] = offset;
+                } else if (offset >= to) {
+                    values[count++] = offset + delta;
+                }
+            }
+            size = count;
+        }
+    }
+
+    /**
+     * Creates index of the text.
+     *
+     * @param text text
+     */
+    public NoteIndex(String text) {
+        this.text = new StringBuilder(text);
+        addWords(0, text.length());
+    }
+
+    /**
+     * Returns indexed text.
+     *
+     * @return text
+     */
+    public String text() {
+        return text.toString();
+    }
+
+    /**
+     * Replaces the indexed text. Only the region between common prefix and common suffix of the old and the new
+     * text is indexed again.
+     *
+     * @param newText new text
+     */
+    public void replace(String newText) {
+        var limit = Math.min(text.length(), newText.length());
+        var prefix = 0;
+        while (prefix < limit && text.charAt(prefix) == newText.charAt(prefix)) {
+            prefix++;
+        }
+        var suffix = 0;
+        while (suffix < limit - prefix
+                && text.charAt(text.length() - suffix - 1) == newText.charAt(newText.length() - suffix - 1))
+        {
+            suffix++;
+        }
+        if (prefix == text.length() && prefix == newText.length()) {
+            return;
+        }
+        replace(prefix, text.length() - suffix, newText.substring(prefix, newText.length() - suffix));
+    }
+
+    /**
+     * Replaces the region of the text, e.g. as reported by a text editor.
+     *
+     * @param start       start of the region
+     * @param end         end of the region, exclusive
+     * @param replacement new text of the region
+     */
+    public void replace(int start, int end, String replacement) {
+        // Words that touch the changed region are indexed again
+        var from = start;
+        while (from > 0 && isWordChar(text.charAt(from - 1))) {
+            from--;
+        }
+        var to = end;
+        while (to < text.length() && isWordChar(text.charAt(to))) {
+            to++;
+        }
+        var delta = replacement.length() - (end - start);
+
+        edits.add(new Edit(from, to, delta));
+        for (var word : words(from, to)) {
+            var offsets = words.get(word);
+            if (offsets != null && update(offsets).size == 0) {
+                words.remove(word);
+            }
+        }
+
+        text.replace(start, end, replacement);
+        addWords(from, to + delta);
+
+        if (edits.size() >= MAX_PENDING_EDITS) {
+            words.values().forEach(this::update);
+            words.values().forEach(offsets -> offsets.applied = 0);
+            edits.clear();
+        }
+    }
+
+    /**
+     * Returns matches of any of the queries ordered by offset. Overlapping matches are merged.
+     *
+     * @param queries queries
+     * @return matches
+     */
+    public List<Match> find(List<String> queries) {
+        var matches = new ArrayList<Match>();
+        for (var query : queries) {
+            matches.addAll(find(query));
+        }
+        matches.sort(Comparator.comparingInt(Match::start));
+
+        var result = new ArrayList<Match>(matches.size());
+        for (var match : matches) {
+            if (!result.isEmpty() && result.getLast().end() >= match.start()) {
+                var last = result.removeLast();
+                result.add(new Match(last.start(), Math.max(last.end(), match.end())));
+            } else {
+                result.add(match);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns matches of the query ordered by offset.
+     *
+     * @param query query
+     * @return matches
+     */
+    public List<Match> find(String query) {
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        var result = findAtWordStart(query);
+        if (result.isEmpty()) {
+            var lowerText = lowerCase(text, 0, text.length());
+            var lowerQuery = lowerCase(query, 0, query.length());
+            result = findInside(lowerText, lowerQuery);
+            if (result.isEmpty()) {
+                result = findFuzzy(lowerText, lowerQuery);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns number of distinct words.
+     *
+     * @return number of words
+     */
+    int wordCount() {
+        return words.size();
+    }
+
+    private List<Match> findAtWordStart(String query) {
+        var length = 0;
+        while (length < query.length() && isWordChar(query.charAt(length))) {
+            length++;
+        }
+        if (length == 0) {
+            return List.of();
+        }
+        var first = lowerCase(query, 0, length);
+
+        // Query ending with its first word matches any word with the prefix, otherwise the word must be complete
+        Map<String, Offsets> candidates;
+        if (length == query.length()) {
+            candidates = words.subMap(first, true, first + Character.MAX_VALUE, false);
+        } else {
+            var offsets = words.get(first);
+            candidates = offsets == null ? Map.of() : Map.of(first, offsets);
+        }
+
+        var result = new ArrayList<Match>();
+        for (var offsets : candidates.values()) {
+            update(offsets);
+            for (int i = 0; i < offsets.size; i++) {
+                var start = offsets.values[i];
+                if (regionMatches(start + length, query, length)) {
+                    result.add(new Match(start, start + query.length()));
+                }
+            }
+        }
+        result.sort(Comparator.comparingInt(Match::start));
+        return result;
+    }
+
+    private static List<Match> findInside(String text, String query) {
+        var result = new ArrayList<Match>();
+        for (var start = text.indexOf(query); start >= 0; start = text.indexOf(query, start + 1)) {
+            result.add(new Match(start, start + query.length()));
+        }
+        return result;
+    }
+
+    private List<Match> findFuzzy(String text, String query) {
+        var maxDistance = FuzzyMatcher.maxDistance(query.length());
+        if (maxDistance == 0) {
+            return List.of();
+        }
+
+        var result = new ArrayList<Match>();
+        for (var offsets : words.values()) {
+            update(offsets);
+            for (int i = 0; i < offsets.size; i++) {
+                var start = offsets.values[i];
+                var length = FuzzyMatcher.prefixLength(query, text, start, maxDistance);
+                if (length > 0) {
+                    result.add(new Match(start, start + length));
+                }
+            }
+        }
+        result.sort(Comparator.comparingInt(Match::start));
+        return result;
+    }
+
+    private void addWords(int from, int to) {
+        var start = -1;
+        for (int i = from; i <= to; i++) {
+            if (i < to && isWordChar(text.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                var word = lowerCase(text, start, i);
+                var offsets = words.get(word);
+                if (offsets == null) {
+                    offsets = new Offsets(edits.size());
+                    words.put(word, offsets);
+                }
+                update(offsets).add(start);
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * Returns distinct words of the text region.
+     */
+    private Set<String> words(int from, int to) {
+        var result = new HashSet<String>();
+        var start = -1;
+        for (int i = from; i <= to; i++) {
+            if (i < to && isWordChar(text.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                result.add(lowerCase(text, start, i));
+                start = -1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Applies logged edits to the offsets.
+     */
+    private Offsets update(Offsets offsets) {
+        for (int i = offsets.applied; i < edits.size(); i++) {
+            var edit = edits.get(i);
+            offsets.edit(edit.from(), edit.to(), edit.delta());
+        }
+        offsets.applied = edits.size();
+        return offsets;
+    }
+
+    /**
+     * Compares the text at the offset with the rest of the query ignoring case.
+     */
+    private boolean regionMatches(int offset, String query, int from) {
+        if (offset + query.length() - from > text.length()) {
+            return false;
+        }
+        for (int i = from; i < query.length(); i++) {
+            if (Character.toLowerCase(text.charAt(offset + i - from)) != Character.toLowerCase(query.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    /**
+     * Converts characters one by one, so offsets of the result match the source.
+     */
+    private static String lowerCase(CharSequence text, int from, int to) {
+        var chars = new char[to - from];
+        for (int i = from; i < to; i++) {
+            chars[i - from] = Character.toLowerCase(text.charAt(i));
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,215 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.search;
+
+import org.panteleyev.pwdmanager.model.Card;
+import org.panteleyev.pwdmanager.model.FieldType;
+import org.panteleyev.pwdmanager.model.Note;
+import org.panteleyev.pwdmanager.model.Picture;
+import org.panteleyev.pwdmanager.model.WalletRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.panteleyev.pwdmanager.search.SearchIndex.normalize;
+
+/**
+ * Parsed search query, see {@link QueryParser} for the syntax. Text values are lower case.
+ */
+sealed interface Query {
+    /**
+     * Normalized content of a record. Queries are checked against it, so records decrypted lazily are not
+     * decrypted again.
+     *
+     * @param texts       lower case texts, name first
+     * @param fieldNames  lower case names of non-empty fields
+     * @param fieldValues lower case values of non-empty fields, in the order of their names
+     * @param fieldTypes  bit mask of field type ordinals
+     */
+    record Content(String[] texts, String[] fieldNames, String[] fieldValues, int fieldTypes) {
+        static Content of(WalletRecord record) {
+            var texts = new ArrayList<String>();
+            texts.add(normalize(record.name()));
+            if (!record.note().isEmpty()) {
+                texts.add(normalize(record.note()));
+            }
+            var fieldNames = new ArrayList<String>();
+            var fieldValues = new ArrayList<String>();
+            var fieldTypes = 0;
+            if (record instanceof Card card) {
+                for (var field : card.fields()) {
+                    var value = normalize(field.getValueAsString());
+                    texts.add(value);
+                    if (!field.isEmpty()) {
+                        fieldNames.add(normalize(field.name()));
+                        fieldValues.add(value);
+                    }
+                    fieldTypes |= 1 << field.type().ordinal();
+                }
+            }
+            return new Content(texts.toArray(String[]::new), fieldNames.toArray(String[]::new),
+                    fieldValues.toArray(String[]::new), fieldTypes);
+        }
+    }
+
+    /**
+     * Checks the record directly, without the index.
+     *
+     * @param record  record
+     * @param content normalized content of the record
+     * @return {@code true} if record matches
+     */
+    boolean test(WalletRecord record, Content content);
+
+    /**
+     * Name, field value or note contains the text.
+     */
+    record Text(String text) implements Query {
+        @Override
+        public boolean test(WalletRecord record, Content content) {
+            for (var t : content.texts()) {
+                if (t.contains(text)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Name contains the text.
+     */
+    record Name(String text) implements Query {
+        @Override
+        public boolean test(WalletRecord record, Content content) {
+            return content.texts()[0].contains(text);
+        }
+    }
+
+    /**
+     * Card has a field with the name, its value contains the text. Empty text matches any non-empty value.
+     */
+    record FieldValue(String name, String value) implements Query {
+        @Override
+        public boolean test(WalletRecord record, Content content) {
+            var names = content.fieldNames();
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name) && content.fieldValues()[i].contains(value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Card has a field of the type.
+     */
+    record HasField(FieldType type) implements Query {
+        @Override
+        public boolean test(WalletRecord record, Content content) {
+            return (content.fieldTypes() & 1 << type.ordinal()) != 0;
+        }
+    }
+
+    record WithPicture(Picture picture) implements Query {
+        @Override
+        public boolean test(WalletRecord record, Content content) {
+            return record.picture() == picture;
+        }
+    }
+
+    /**
+     * Record modification time is within {@code [from, to)}, in milliseconds.
+     */
+    record Modified(long from, long to) implements Query {
+        @Override
+        public boolean test(WalletRecord record, Content content) {
+            return record.modified() >= from && record.modified() < to;
+        }
+    }
+
+    enum Flag implements Query {
+        FAVORITE,
+        DELETED,
+        CARD,
+        NOTE;
+
+        @Override
+        public boolean test(WalletRecord record, Content content) {
+            return switch (this) {
+                case FAVORITE -> record.favorite();
+                case DELETED -> !record.active();
+                case CARD -> record instanceof Card;
+                case NOTE -> record instanceof Note;
+            };
+        }
+    }
+
+    record And(List<Query> terms) implements Query {
+        @Override
+        public boolean test(WalletRecord record, Content content) {
+            for (var term : terms) {
+                if (!term.test(record, content)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    record Or(List<Query> terms) implements Query {
+        @Override
+        public boolean test(WalletRecord record, Content content) {
+            for (var term : terms) {
+                if (term.test(record, content)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    record Not(Query term) implements Query {
+        @Override
+        public boolean test(WalletRecord record, Content content) {
+            return !term.test(record, content);
+        }
+    }
+
+    /**
+     * Returns texts of the query that are not negated. They rank the matching records.
+     *
+     * @param query query
+     * @return texts
+     */
+    static List<String> rankedTexts(Query query) {
+        var result = new ArrayList<String>();
+        collectTexts(query, true, result);
+        return result;
+    }
+
+    /**
+     * Returns texts of {@link Text} terms that are not negated, i.e. texts that may be found in field values and
+     * notes.
+     *
+     * @param query query
+     * @return texts
+     */
+    static List<String> contentTexts(Query query) {
+        var result = new ArrayList<String>();
+        collectTexts(query, false, result);
+        return result;
+    }
+
+    private static void collectTexts(Query query, boolean names, List<String> result) {
+        switch (query) {
+            case Text(var text) -> result.add(text);
+            case Name(var text) when names -> result.add(text);
+            case And(var terms) -> terms.forEach(t -> collectTexts(t, names, result));
+            case Or(var terms) -> terms.forEach(t -> collectTexts(t, names, result));
+            default -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.search;
+
+import org.panteleyev.pwdmanager.model.FieldType;
+import org.panteleyev.pwdmanager.model.Picture;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.panteleyev.pwdmanager.search.SearchIndex.normalize;
+
+/**
+ * Parses search queries. Query without any of the syntax below is a single substring, spaces included.
+ * <ul>
+ *     <li>{@code name:bank} - name contains the text</li>
+ *     <li>{@code field:login=john} - field with the name contains the text, {@code field:login} - field is not
+ *     empty</li>
+ *     <li>{@code type:LINK} - card has a field of the type, {@code type:card}, {@code type:note} - record kind</li>
+ *     <li>{@code picture:VISA} - record picture</li>
+ *     <li>{@code is:favorite}, {@code is:deleted}</li>
+ *     <li>{@code modified:>2025-01-01} - modification date, {@code >}, {@code >=}, {@code <}, {@code <=} or
+ *     none for the exact day</li>
+ *     <li>{@code AND}, {@code OR}, {@code NOT} and parentheses, adjacent terms are joined by {@code AND}</li>
+ * </ul>
+ * Other words are substrings of the name, a field value or the note. Double quotes keep spaces and make the
+ * text literal, e.g. {@code field:"card number"=1234} or {@code "is:deleted"}. Terms with unknown keys or
+ * invalid values are treated as text, so the search box never fails.
+ */
+final class QueryParser {
+    private static final String AND = "AND";
+    private static final String OR = "OR";
+    private static final String NOT = "NOT";
+    private static final String OPEN = "(";
+    private static final String CLOSE = ")";
+
+    /**
+     * Query token.
+     *
+     * @param text    text without quotes
+     * @param literal token started with a quote
+     */
+    private record Token(String text, boolean literal) {
+        boolean is(String operator) {
+            return !literal && text.equals(operator);
+        }
+    }
+
+    private final List<Token> tokens;
+    private final ZoneId zone;
+    private int position;
+
+    private QueryParser(List<Token> tokens, ZoneId zone) {
+        this.tokens = tokens;
+        this.zone = zone;
+    }
+
+    /**
+     * Parses query, dates are in the system time zone.
+     *
+     * @param query query
+     * @return parsed query
+     */
+    static Query parse(String query) {
+        return parse(query, ZoneId.systemDefault());
+    }
+
+    static Query parse(String query, ZoneId zone) {
+        var tokens = tokenize(query);
+        var parser = new QueryParser(tokens, zone);
+        if (tokens.stream().noneMatch(parser::isSyntax)) {
+            return new Query.Text(normalize(query));
+        }
+        // Unbalanced closing parenthesis ends the expression, the rest is joined by AND
+        var terms = new ArrayList<Query>();
+        addTerm(terms, parser.parseOr());
+        while (parser.position < parser.tokens.size()) {
+            parser.position++;
+            addTerm(terms, parser.parseOr());
+        }
+        return and(terms);
+    }
+
+    private boolean isSyntax(Token token) {
+        return token.literal() || token.is(AND) || token.is(OR) || token.is(NOT) || token.is(OPEN)
+                || token.is(CLOSE) || parseTerm(token.text()) != null;
+    }
+
+    // Methods below return null for missing operands, e.g. while the query is being typed
+
+    private Query parseOr() {
+        var terms = new ArrayList<Query>();
+        addTerm(terms, parseAnd());
+        while (peek(OR)) {
+            position++;
+            addTerm(terms, parseAnd());
+        }
+        return switch (terms.size()) {
+            case 0 -> null;
+            case 1 -> terms.getFirst();
+            default -> new Query.Or(terms);
+        };
+    }
+
+    private Query parseAnd() {
+        var terms = new ArrayList<Query>();
+        addTerm(terms, parseUnary());
+        while (position < tokens.size() && !peek(OR) && !peek(CLOSE)) {
+            if (peek(AND)) {
+                position++;
+            }
+            addTerm(terms, parseUnary());
+        }
+        return terms.isEmpty() ? null : and(terms);
+    }
+
+    private Query parseUnary() {
+        if (position >= tokens.size() || peek(OR) || peek(CLOSE)) {
+            return null;
+        }
+        var token = tokens.get(position++);
+        if (token.is(NOT)) {
+            var term = parseUnary();
+            return term == null ? null : new Query.Not(term);
+        }
+        if (token.is(OPEN)) {
+            var result = parseOr();
+            if (peek(CLOSE)) {
+                position++;
+            }
+            return result;
+        }
+        if (token.literal()) {
+            return new Query.Text(normalize(token.text()));
+        }
+        var term = parseTerm(token.text());
+        return term != null ? term : new Query.Text(normalize(token.text()));
+    }
+
+    private static void addTerm(List<Query> terms, Query term) {
+        if (term != null) {
+            terms.add(term);
+        }
+    }
+
+    private boolean peek(String operator) {
+        return position < tokens.size() && tokens.get(position).is(operator);
+    }
+
+    /**
+     * Joins terms, no terms match all records.
+     */
+    private static Query and(List<Query> terms) {
+        return terms.size() == 1 ? terms.getFirst() : new Query.And(terms);
+    }
+
+    /**
+     * Parses {@code key:value} term.
+     *
+     * @return term or {@code null} if the text is not a valid term
+     */
+    private Query parseTerm(String text) {
+        var colon = text.indexOf(':');
+        if (colon < 0) {
+            return null;
+        }
+        var value = text.substring(colon + 1);
+        return switch (text.substring(0, colon).toLowerCase(Locale.ROOT)) {
+            case "name" -> value.isEmpty() ? null : new Query.Name(normalize(value));
+            case "field" -> parseField(value);
+            case "type" -> parseType(value);
+            case "picture" -> {
+                var picture = parseEnum(Picture.class, value);
+                yield picture == null ? null : new Query.WithPicture(picture);
+            }
+            case "is" -> switch (value.toLowerCase(Locale.ROOT)) {
+                case "favorite" -> Query.Flag.FAVORITE;
+                case "deleted" -> Query.Flag.DELETED;
+                default -> null;
+            };
+            case "modified" -> parseModified(value);
+            default -> null;
+        };
+    }
+
+    private static Query parseField(String value) {
+        var eq = value.indexOf('=');
+        var name = eq < 0 ? value : value.substring(0, eq);
+        if (name.isEmpty()) {
+            return null;
+        }
+        return new Query.FieldValue(normalize(name), eq < 0 ? "" : normalize(value.substring(eq + 1)));
+    }
+
+    private static Query parseType(String value) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "card" -> Query.Flag.CARD;
+            case "note" -> Query.Flag.NOTE;
+            default -> {
+                var type = parseEnum(FieldType.class, value);
+                yield type == null ? null : new Query.HasField(type);
+            }
+        };
+    }
+
+    private Query parseModified(String value) {
+        var operator = "";
+        if (value.startsWith(">=") || value.startsWith("<=")) {
+            operator = value.substring(0, 2);
+        } else if (value.startsWith(">") || value.startsWith("<") || value.startsWith("=")) {
+            operator = value.substring(0, 1);
+        }
+        LocalDate date;
+        try {
+            date = LocalDate.parse(value.substring(operator.length()));
+        } catch (DateTimeParseException _) {
+            return null;
+        }
+        var start = startOf(date);
+        var end = startOf(date.plusDays(1));
+        return switch (operator) {
+            case ">" -> new Query.Modified(end, Long.MAX_VALUE);
+            case ">=" -> new Query.Modified(start, Long.MAX_VALUE);
+            case "<" -> new Query.Modified(Long.MIN_VALUE, start);
+            case "<=" -> new Query.Modified(Long.MIN_VALUE, end);
+            default -> new Query.Modified(start, end);
+        };
+    }
+
+    private long startOf(LocalDate date) {
+        return date.atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException _) {
+            return null;
+        }
+    }
+
+    /**
+     * Splits query into tokens by spaces and parentheses outside of double quotes.
+     */
+    private static List<Token> tokenize(String query) {
+        var result = new ArrayList<Token>();
+        var text = new StringBuilder();
+        var inToken = false;
+        var literal = false;
+        var quoted = false;
+        for (int i = 0; i < query.length(); i++) {
+            var c = query.charAt(i);
+            if (c == '"') {
+                if (!inToken) {
+                    literal = true;
+                }
+                inToken = true;
+                quoted = !quoted;
+            } else if (!quoted && (Character.isWhitespace(c) || c == '(' || c == ')')) {
+                if (inToken) {
+                    result.add(new Token(text.toString(), literal));
+                    text.setLength(0);
+                    inToken = false;
+                    literal = false;
+                }
+                if (c != '(' && c != ')') {
+                    continue;
+                }
+                result.add(new Token(String.valueOf(c), false));
+            } else {
+                text.append(c);
+                inToken = true;
+            }
+        }
+        if (inToken) {
+            result.add(new Token(text.toString(), literal));
+        }
+        return result;
+    }
+}
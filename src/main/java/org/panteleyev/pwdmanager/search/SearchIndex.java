@@ -0,0 +1,1265 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.search;
+
+import org.panteleyev.pwdmanager.model.FieldType;
+import org.panteleyev.pwdmanager.model.Picture;
+import org.panteleyev.pwdmanager.model.WalletRecord;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * In-memory trigram index over record names, field values and notes.
+ * <p>
+ * Each record gets a sequential document id. Trigrams of its lower case texts are hashed into a fixed number of
+ * buckets, every bucket holds ascending list of document ids. Substring query intersects lists of its trigrams
+ * and checks the remaining candidates. Hash collisions and trigrams that are not adjacent in the text only add
+ * candidates, so the check keeps results exact. Queries shorter than a trigram check all records.
+ * <p>
+ * Matches are ranked by {@link FuzzyMatcher}. Records that do not contain the query are also checked for typos
+ * if they share enough trigrams with the query: {@code k} typos change at most {@code 3k} trigrams. The same
+ * threshold is used for short queries that do not have that many trigrams, with at least one trigram in common.
+ * <p>
+ * Queries using {@link QueryParser} syntax are evaluated as a plan over per-attribute indexes: field names, field
+ * types, pictures, flags and modification times map to document id sets. Terms of a conjunction are evaluated
+ * in the order of their estimated result size, each one within the result of the previous ones. A term is
+ * checked against every remaining document instead of its index when there are fewer documents than the index
+ * would give. Structured queries are ranked by their text terms and are not fuzzy.
+ * <p>
+ * When a query contains the query of the previous {@link Filter}, only previous matches and documents added
+ * since then are checked, unless trigram lists give fewer candidates. Document ids are stable until the index
+ * is reset or compacted, so previous matches stay valid across additions and removals.
+ * <p>
+ * Records are set by {@link #reset(Collection)} and kept up to date with {@link #add(WalletRecord)} and
+ * {@link #remove(WalletRecord)}. The index itself is built on the first query, records of a lazily decrypted
+ * wallet are not touched until search is actually used. The index is built without holding the lock and published
+ * when it is complete, records changed meanwhile are indexed again at that point. Removed documents are left in
+ * bucket lists and skipped, lists are compacted when removed documents outnumber live ones.
+ * <p>
+ * Built index can be exported and restored later, so a wallet that was not changed is searchable without
+ * reading every record again. Restored documents keep their texts and field attributes, lazily decrypted records
+ * stay encrypted.
+ * <p>
+ * The index is thread safe, queries may run on any thread while the owner of the records applies changes.
+ * Queries running on an interrupted thread stop with {@link CancellationException}. Documents that cannot be
+ * found by the trigram or attribute indexes are checked in parallel when there are many of them.
+ */
+public final class SearchIndex {
+    private static final Logger LOGGER = Logger.getLogger(SearchIndex.class.getName());
+
+    static final int GRAM = 3;
+
+    private static final int BUCKET_BITS = 18;
+    private static final int BUCKET_MASK = (1 << BUCKET_BITS) - 1;
+    private static final int COMPACT_THRESHOLD = 1024;
+    private static final int CANCELLATION_CHECK_MASK = 1023;
+    // Scans of fewer documents are not worth splitting
+    static final int PARALLEL_THRESHOLD = 16_384;
+    private static final int PARALLEL_RANGE = 4_096;
+    // Version of the persisted index, see export(Collection)
+    private static final int PERSISTED_VERSION = 1;
+    private static final FieldType[] FIELD_TYPES = FieldType.values();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Only one thread builds or restores the index
+    private final Lock buildLock = new ReentrantLock();
+
+    // All fields below are guarded by lock
+    private boolean built;
+    // Records to be indexed on the first query
+    private Map<UUID, WalletRecord> pending = new LinkedHashMap<>();
+    // Records changed while the index is being built
+    private Set<UUID> changed;
+    // Index content is replaced as a whole when a built index is published
+    private IdList[] buckets;
+    private List<Doc> docs = new ArrayList<>();
+    private Map<UUID, Doc> byUuid = new HashMap<>();
+    private BitSet live = new BitSet();
+    // Attributes with few distinct values use bit sets, others use id lists
+    private Map<String, IdList> byFieldName = new HashMap<>();
+    private Map<FieldType, BitSet> byFieldType = new EnumMap<>(FieldType.class);
+    private Map<Picture, BitSet> byPicture = new EnumMap<>(Picture.class);
+    private Map<Query.Flag, BitSet> byFlag = new EnumMap<>(Query.Flag.class);
+    private NavigableMap<Long, IdList> byModified = new TreeMap<>();
+    private int removedCount;
+    private long stamp;
+    // Changes when document ids are reassigned
+    private int generation;
+
+    /**
+     * Indexed record.
+     *
+     * @param id      document id
+     * @param record  record
+     * @param content normalized content of the record
+     * @param stamp   modification stamp of the index when the record was added
+     */
+    private record Doc(int id, WalletRecord record, Query.Content content, long stamp) {
+        String[] texts() {
+            return content.texts();
+        }
+
+        boolean contains(String query) {
+            for (var text : content.texts()) {
+                if (text.contains(query)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Growable ascending list of document ids.
+     */
+    private static final class IdList {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        void remove(int id) {
+            var index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Adds record to the index. Record with the same UUID is replaced.
+     *
+     * @param record record
+     */
+    public void add(WalletRecord record) {
+        lock.writeLock().lock();
+        try {
+            if (!built) {
+                pending.put(record.uuid(), record);
+                if (changed != null) {
+                    changed.add(record.uuid());
+                }
+                return;
+            }
+            removeDoc(record.uuid());
+            index(record);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes record with the same UUID from the index.
+     *
+     * @param record record
+     */
+    public void remove(WalletRecord record) {
+        lock.writeLock().lock();
+        try {
+            if (!built) {
+                pending.remove(record.uuid());
+                if (changed != null) {
+                    changed.add(record.uuid());
+                }
+                return;
+            }
+            removeDoc(record.uuid());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces all records. The index will be built on the next query.
+     *
+     * @param records records
+     */
+    public void reset(Collection<? extends WalletRecord> records) {
+        lock.writeLock().lock();
+        try {
+            clear();
+            for (var record : records) {
+                pending.put(record.uuid(), record);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Builds the index now instead of on the first query, e.g. on a background thread.
+     */
+    public void build() {
+        readLocked();
+        lock.readLock().unlock();
+    }
+
+    /**
+     * Moves the index content to a new index, e.g. to export it on another thread while this one is reset for
+     * another wallet. This index keeps the same records and is built again on the next query.
+     *
+     * @return index with the current content, it is not built if this one was not built
+     */
+    public SearchIndex detach() {
+        lock.writeLock().lock();
+        try {
+            var detached = new SearchIndex();
+            var records = new ArrayList<WalletRecord>();
+            if (built) {
+                detached.publish(this);
+                docs.stream().filter(Objects::nonNull).map(Doc::record).forEach(records::add);
+            } else {
+                records.addAll(pending.values());
+            }
+            clear();
+            for (var record : records) {
+                pending.put(record.uuid(), record);
+            }
+            return detached;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Serializes the index of the records. Nothing is exported if the index is not built or does not hold exactly
+     * these records, e.g. when they were changed while the index was being built.
+     *
+     * @param records records the index must hold
+     * @return serialized index
+     */
+    public Optional<byte[]> export(Collection<? extends WalletRecord> records) {
+        lock.readLock().lock();
+        try {
+            if (!built) {
+                return Optional.empty();
+            }
+            if (byUuid.size() != records.size()) {
+                return Optional.empty();
+            }
+            for (var record : records) {
+                var doc = byUuid.get(record.uuid());
+                if (doc == null || doc.record() != record) {
+                    return Optional.empty();
+                }
+            }
+
+            // Removed documents are skipped, live ones get consecutive ids
+            var ids = new int[docs.size()];
+            var count = 0;
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = docs.get(i) == null ? -1 : count++;
+            }
+
+            var bytes = new ByteArrayOutputStream();
+            try (var out = new DataOutputStream(new BufferedOutputStream(bytes))) {
+                out.writeInt(PERSISTED_VERSION);
+                out.writeInt(BUCKET_BITS);
+                out.writeInt(count);
+                for (var doc : docs) {
+                    if (doc != null) {
+                        out.writeLong(doc.record().uuid().getMostSignificantBits());
+                        out.writeLong(doc.record().uuid().getLeastSignificantBits());
+                        writeStrings(out, doc.texts());
+                        writeStrings(out, doc.content().fieldNames());
+                        writeStrings(out, doc.content().fieldValues());
+                        out.writeInt(doc.content().fieldTypes());
+                    }
+                }
+
+                var mapped = new int[count];
+                for (int key = 0; key < buckets.length; key++) {
+                    var list = buckets[key];
+                    if (list == null) {
+                        continue;
+                    }
+                    var size = 0;
+                    for (int i = 0; i < list.size; i++) {
+                        if (ids[list.ids[i]] >= 0) {
+                            mapped[size++] = ids[list.ids[i]];
+                        }
+                    }
+                    if (size == 0) {
+                        continue;
+                    }
+                    // Ascending ids are stored as variable length deltas
+                    out.writeInt(key);
+                    out.writeInt(size);
+                    var previous = -1;
+                    for (int i = 0; i < size; i++) {
+                        writeVarInt(out, mapped[i] - previous);
+                        previous = mapped[i];
+                    }
+                }
+                out.writeInt(-1);
+            }
+            return Optional.of(bytes.toByteArray());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Restores index exported by {@link #export(Collection)} instead of building it. Only documents of records that
+     * are still the same objects as the exported records are restored, other records are indexed as usual.
+     * Queries submitted while the index is being restored wait for it.
+     *
+     * @param data    serialized index
+     * @param records records the index was exported for
+     * @return {@code false} if the index is already built or the data is not valid
+     */
+    public boolean restore(ByteBuffer data, Collection<? extends WalletRecord> records) {
+        var exported = new HashMap<UUID, WalletRecord>();
+        for (var record : records) {
+            exported.put(record.uuid(), record);
+        }
+        return build(data, exported);
+    }
+
+    /**
+     * Builds the index or restores it from exported data without holding the lock, then publishes it. Records
+     * changed meanwhile are indexed again when the index is published.
+     *
+     * @param data     serialized index, {@code null} to build the index
+     * @param exported records the index was exported for
+     * @return {@code false} if the index is already built, the data is not valid or records were reset meanwhile
+     */
+    private boolean build(ByteBuffer data, Map<UUID, WalletRecord> exported) {
+        buildLock.lock();
+        try {
+            var result = new SearchIndex();
+            Map<UUID, WalletRecord> records;
+            int buildGeneration;
+            lock.writeLock().lock();
+            try {
+                if (built) {
+                    return false;
+                }
+                records = new LinkedHashMap<>(pending);
+                changed = new HashSet<>();
+                buildGeneration = generation;
+                // Documents of the new index must be newer than existing filters
+                result.stamp = stamp;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            result.built = true;
+            result.buckets = new IdList[1 << BUCKET_BITS];
+            var valid = data == null || result.decode(data, records, exported);
+            if (valid) {
+                // Records that were not restored
+                records.values().forEach(result::index);
+            }
+
+            lock.writeLock().lock();
+            try {
+                if (!valid || generation != buildGeneration) {
+                    // Records were reset meanwhile, the next query builds the index again
+                    changed = null;
+                    return false;
+                }
+                for (var uuid : changed) {
+                    result.removeDoc(uuid);
+                    var record = pending.get(uuid);
+                    if (record != null) {
+                        result.index(record);
+                    }
+                }
+                result.compactIfNeeded();
+                publish(result);
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    /**
+     * Restores documents of exported index into this unpublished index. Documents of records that are not the same
+     * objects as the exported records are left as removed, restored records are removed from the map.
+     *
+     * @param data     serialized index
+     * @param records  records to be indexed
+     * @param exported records the index was exported for
+     * @return {@code false} if the data is not valid
+     */
+    private boolean decode(ByteBuffer data, Map<UUID, WalletRecord> records, Map<UUID, WalletRecord> exported) {
+        try {
+            var in = data.duplicate();
+            if (in.getInt() != PERSISTED_VERSION || in.getInt() != BUCKET_BITS) {
+                return false;
+            }
+            var count = readSize(in);
+            var restored = new ArrayList<Doc>(count);
+            for (int id = 0; id < count; id++) {
+                var uuid = new UUID(in.getLong(), in.getLong());
+                var texts = readStrings(in);
+                var fieldNames = readStrings(in);
+                var fieldValues = readStrings(in);
+                if (fieldValues.length != fieldNames.length) {
+                    throw new IllegalArgumentException("Field values do not match names");
+                }
+                var fieldTypes = in.getInt();
+                var record = records.get(uuid);
+                restored.add(record == null || record != exported.get(uuid)
+                        ? null
+                        : new Doc(id, record, new Query.Content(texts, fieldNames, fieldValues, fieldTypes),
+                                ++stamp));
+            }
+
+            for (var key = in.getInt(); key >= 0; key = in.getInt()) {
+                if (key >= buckets.length || buckets[key] != null) {
+                    throw new IllegalArgumentException("Invalid bucket " + key);
+                }
+                var size = readSize(in);
+                var list = new IdList();
+                list.ids = new int[Math.max(size, 1)];
+                var id = -1;
+                for (int i = 0; i < size; i++) {
+                    var delta = readVarInt(in);
+                    id += delta;
+                    if (delta <= 0 || id >= count) {
+                        throw new IllegalArgumentException("Invalid document id " + id);
+                    }
+                    list.ids[list.size++] = id;
+                }
+                buckets[key] = list;
+            }
+
+            for (var doc : restored) {
+                if (doc == null) {
+                    // Document ids must stay in place, bucket lists refer to them
+                    docs.add(null);
+                    removedCount++;
+                } else {
+                    addDoc(doc);
+                    records.remove(doc.record().uuid());
+                }
+            }
+            return true;
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            LOGGER.warning("Persisted search index is not valid: " + ex);
+            return false;
+        }
+    }
+
+    private void publish(SearchIndex index) {
+        built = true;
+        pending = new LinkedHashMap<>();
+        changed = null;
+        buckets = index.buckets;
+        docs = index.docs;
+        byUuid = index.byUuid;
+        live = index.live;
+        byFieldName = index.byFieldName;
+        byFieldType = index.byFieldType;
+        byPicture = index.byPicture;
+        byFlag = index.byFlag;
+        byModified = index.byModified;
+        removedCount = index.removedCount;
+        stamp = index.stamp;
+    }
+
+    private void removeDoc(UUID uuid) {
+        var doc = byUuid.remove(uuid);
+        if (doc != null) {
+            updateAttributes(doc, false);
+            docs.set(doc.id(), null);
+            removedCount++;
+            stamp++;
+            compactIfNeeded();
+        }
+    }
+
+    private void clear() {
+        built = false;
+        pending = new LinkedHashMap<>();
+        changed = null;
+        buckets = null;
+        // Content may still be used by a detached index
+        docs = new ArrayList<>();
+        byUuid = new HashMap<>();
+        live = new BitSet();
+        byFieldName = new HashMap<>();
+        byFieldType = new EnumMap<>(FieldType.class);
+        byPicture = new EnumMap<>(Picture.class);
+        byFlag = new EnumMap<>(Query.Flag.class);
+        byModified = new TreeMap<>();
+        removedCount = 0;
+        stamp++;
+        generation++;
+    }
+
+    /**
+     * Returns records matching the query, best matches first.
+     *
+     * @param query query
+     * @return matching records
+     */
+    public List<WalletRecord> search(String query) {
+        var filter = filter(query);
+        var result = new ArrayList<>(filter.scores.keySet());
+        result.sort(filter.comparator().thenComparing(WalletRecord::name));
+        return result;
+    }
+
+    /**
+     * Record filter for a query. Matching and scoring are done once, the predicate and the comparator are
+     * lookups. Records added or changed after the filter was created are checked directly.
+     */
+    public final class Filter implements Predicate<WalletRecord> {
+        private final String query;
+        private final Query parsed;
+        // Exact matches, used for refinement
+        private final BitSet matches;
+        // Scores of exact and fuzzy matches
+        private final Map<WalletRecord, Integer> scores;
+        private final long filterStamp;
+        private final int filterGeneration;
+        private final int docCount;
+
+        private Filter(String query, Query parsed, BitSet matches, Map<WalletRecord, Integer> scores) {
+            this.query = query;
+            this.parsed = parsed;
+            this.matches = matches;
+            this.scores = scores;
+            this.filterStamp = stamp;
+            this.filterGeneration = generation;
+            this.docCount = docs.size();
+        }
+
+        @Override
+        public boolean test(WalletRecord record) {
+            return score(record) != FuzzyMatcher.NO_MATCH;
+        }
+
+        /**
+         * Returns comparator that puts best matches first.
+         *
+         * @return comparator
+         */
+        public Comparator<WalletRecord> comparator() {
+            return Comparator.comparingInt(this::score).reversed();
+        }
+
+        private int score(WalletRecord record) {
+            var score = scores.get(record);
+            if (score != null) {
+                return score;
+            }
+
+            Doc doc;
+            lock.readLock().lock();
+            try {
+                doc = byUuid.get(record.uuid());
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (doc == null || doc.record() != record) {
+                return SearchIndex.score(parsed, record, Query.Content.of(record));
+            }
+            if (doc.stamp() > filterStamp) {
+                return SearchIndex.score(parsed, record, doc.content());
+            }
+            return FuzzyMatcher.NO_MATCH;
+        }
+
+        /**
+         * Returns normalized query of this filter.
+         *
+         * @return query
+         */
+        public String query() {
+            return query;
+        }
+
+        /**
+         * Returns texts of the query that may be found in the record content, for highlighting.
+         *
+         * @return texts, empty for queries without text terms
+         */
+        public List<String> contentTexts() {
+            return Query.contentTexts(parsed).stream().filter(text -> !text.isBlank()).toList();
+        }
+    }
+
+    /**
+     * Creates record filter for the query.
+     *
+     * @param query query
+     * @return filter
+     */
+    public Filter filter(String query) {
+        return filter(query, null);
+    }
+
+    /**
+     * Creates record filter for the query refining the previous filter if possible.
+     *
+     * @param query    query
+     * @param previous filter created by this index for the previous query, may be {@code null}
+     * @return filter
+     */
+    public Filter filter(String query, Filter previous) {
+        var normalized = normalize(query);
+        var parsed = QueryParser.parse(query);
+        readLocked();
+        try {
+            if (!(parsed instanceof Query.Text(var text))) {
+                var matches = evaluate(parsed, (BitSet) live.clone());
+                return new Filter(normalized, parsed, matches, scores(parsed, matches));
+            }
+
+            BitSet matches;
+            if (previous != null && previous.filterGeneration == generation
+                    && previous.parsed instanceof Query.Text(var previousText) && text.contains(previousText)
+                    && previous.matches.cardinality() + docs.size() - previous.docCount <= candidateLimit(text))
+            {
+                matches = refine(text, previous);
+            } else {
+                matches = match(text);
+            }
+            return new Filter(normalized, parsed, matches, scores(text, matches));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scores a single record without the index.
+     *
+     * @param record record
+     * @param query  query
+     * @return score, {@code 0} if record does not match
+     */
+    public static int score(WalletRecord record, String query) {
+        return score(QueryParser.parse(query), record, Query.Content.of(record));
+    }
+
+    private static int score(Query query, WalletRecord record, Query.Content content) {
+        if (query instanceof Query.Text(var text)) {
+            return FuzzyMatcher.score(content.texts(), text);
+        }
+        if (!query.test(record, content)) {
+            return FuzzyMatcher.NO_MATCH;
+        }
+        var score = FuzzyMatcher.ATTRIBUTE_MATCH;
+        for (var text : Query.rankedTexts(query)) {
+            score = Math.max(score, FuzzyMatcher.exactScore(content.texts(), text));
+        }
+        return score;
+    }
+
+    int size() {
+        readLocked();
+        try {
+            return byUuid.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Acquires read lock on the built index.
+     */
+    private void readLocked() {
+        while (true) {
+            lock.readLock().lock();
+            if (built) {
+                return;
+            }
+            lock.readLock().unlock();
+            build(null, Map.of());
+        }
+    }
+
+    private BitSet match(String query) {
+        if (query.length() < GRAM) {
+            return scan(live, doc -> doc.contains(query));
+        }
+
+        var scope = new BitSet(docs.size());
+        for (var id : candidates(query)) {
+            scope.set(id);
+        }
+        scope.and(live);
+        return scan(scope, doc -> doc.contains(query));
+    }
+
+    /**
+     * Returns ascending ids of documents that have all trigrams of the query.
+     */
+    private int[] candidates(String query) {
+        var keys = bucketKeys(query);
+        var lists = new IdList[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            lists[i] = buckets[keys[i]];
+            if (lists[i] == null) {
+                return new int[0];
+            }
+        }
+        // Shortest list first keeps intermediate result small
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+        var candidates = Arrays.copyOf(lists[0].ids, lists[0].size);
+        var count = candidates.length;
+        for (int i = 1; i < lists.length && count > 0; i++) {
+            count = intersect(candidates, count, lists[i]);
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    /**
+     * Evaluates structured query.
+     *
+     * @param query query
+     * @param scope live documents to check, may be modified
+     * @return matching documents within the scope
+     */
+    private BitSet evaluate(Query query, BitSet scope) {
+        return switch (query) {
+            case Query.And(var terms) -> {
+                // Cheapest terms first, estimates are capped as terms that big are checked directly
+                var ordered = new ArrayList<>(terms);
+                var estimates = new IdentityHashMap<Query, Integer>();
+                var limit = scope.cardinality();
+                for (var term : ordered) {
+                    var estimate = estimate(term, limit);
+                    estimates.put(term, estimate);
+                    limit = Math.min(limit, estimate);
+                }
+                ordered.sort(Comparator.comparingInt(estimates::get));
+
+                var result = scope;
+                for (var term : ordered) {
+                    if (result.isEmpty()) {
+                        break;
+                    }
+                    result = evaluate(term, result);
+                }
+                yield result;
+            }
+            case Query.Or(var terms) -> {
+                var result = new BitSet();
+                for (var term : terms) {
+                    result.or(evaluate(term, (BitSet) scope.clone()));
+                }
+                yield result;
+            }
+            case Query.Not(var term) -> {
+                var excluded = evaluate(term, (BitSet) scope.clone());
+                scope.andNot(excluded);
+                yield scope;
+            }
+            case Query.Text(var text) when text.length() >= GRAM && candidateLimit(text) < scope.cardinality() -> {
+                var result = new BitSet();
+                for (var id : candidates(text)) {
+                    if (scope.get(id) && docs.get(id).contains(text)) {
+                        result.set(id);
+                    }
+                }
+                yield result;
+            }
+            case Query.Name(var text) when text.length() >= GRAM && candidateLimit(text) < scope.cardinality() -> {
+                var result = new BitSet();
+                for (var id : candidates(text)) {
+                    if (scope.get(id) && query.test(docs.get(id).record(), docs.get(id).content())) {
+                        result.set(id);
+                    }
+                }
+                yield result;
+            }
+            case Query.FieldValue(var name, var value) -> {
+                // Either documents with the field or documents with all trigrams of the value
+                var ids = byFieldName.get(name);
+                if (ids == null) {
+                    yield new BitSet();
+                }
+                var candidates = Arrays.copyOf(ids.ids, ids.size);
+                if (value.length() >= GRAM && candidateLimit(value) < ids.size) {
+                    candidates = candidates(value);
+                }
+                var result = new BitSet();
+                for (var id : candidates) {
+                    if (scope.get(id)) {
+                        result.set(id);
+                    }
+                }
+                yield check(query, result);
+            }
+            case Query.HasField(var type) -> indexed(byFieldType.get(type), scope);
+            case Query.WithPicture(var picture) -> indexed(byPicture.get(picture), scope);
+            case Query.Flag flag -> indexed(byFlag.get(flag), scope);
+            case Query.Modified modified when estimate(modified, scope.cardinality()) < scope.cardinality() -> {
+                var result = new BitSet();
+                for (var ids : byModified.subMap(modified.from(), true, modified.to(), false).values()) {
+                    for (int i = 0; i < ids.size; i++) {
+                        if (scope.get(ids.ids[i])) {
+                            result.set(ids.ids[i]);
+                        }
+                    }
+                }
+                yield result;
+            }
+            default -> check(query, scope);
+        };
+    }
+
+    /**
+     * Returns estimated size of the term result.
+     *
+     * @param limit estimates above the limit are not exact
+     */
+    private int estimate(Query query, int limit) {
+        return switch (query) {
+            case Query.And(var terms) -> {
+                var result = limit;
+                for (var term : terms) {
+                    result = Math.min(result, estimate(term, result));
+                }
+                yield result;
+            }
+            case Query.Or(var terms) -> {
+                var result = 0;
+                for (var term : terms) {
+                    result += estimate(term, limit - result);
+                    if (result >= limit) {
+                        break;
+                    }
+                }
+                yield result;
+            }
+            case Query.Text(var text) when text.length() >= GRAM -> candidateLimit(text);
+            case Query.Name(var text) when text.length() >= GRAM -> candidateLimit(text);
+            case Query.FieldValue(var name, var value) -> {
+                var ids = byFieldName.get(name);
+                var result = ids == null ? 0 : ids.size;
+                yield value.length() >= GRAM ? Math.min(result, candidateLimit(value)) : result;
+            }
+            case Query.HasField(var type) -> cardinality(byFieldType.get(type));
+            case Query.WithPicture(var picture) -> cardinality(byPicture.get(picture));
+            case Query.Flag flag -> cardinality(byFlag.get(flag));
+            case Query.Modified(var from, var to) -> {
+                var result = 0;
+                for (var ids : byModified.subMap(from, true, to, false).values()) {
+                    result += ids.size;
+                    if (result >= limit) {
+                        break;
+                    }
+                }
+                yield result;
+            }
+            default -> limit;
+        };
+    }
+
+    private static int cardinality(BitSet ids) {
+        return ids == null ? 0 : ids.cardinality();
+    }
+
+    private static BitSet indexed(BitSet ids, BitSet scope) {
+        if (ids == null) {
+            scope.clear();
+        } else {
+            scope.and(ids);
+        }
+        return scope;
+    }
+
+    /**
+     * Checks documents of the scope one by one.
+     */
+    private BitSet check(Query query, BitSet scope) {
+        return scan(scope, doc -> query.test(doc.record(), doc.content()));
+    }
+
+    /**
+     * Returns ids of live documents of the scope that pass the check. Scopes of at least
+     * {@link #PARALLEL_THRESHOLD} documents are split into id ranges checked in the common fork/join pool, results
+     * of the ranges are merged in id order.
+     */
+    private BitSet scan(BitSet scope, Predicate<Doc> check) {
+        var caller = Thread.currentThread();
+        if (ForkJoinPool.getCommonPoolParallelism() < 2 || scope.cardinality() < PARALLEL_THRESHOLD) {
+            return scan(scope, 0, docs.size(), check, caller);
+        }
+        return ForkJoinPool.commonPool().invoke(new ScanTask(scope, 0, docs.size(), check, caller));
+    }
+
+    /**
+     * Checks documents of the scope within the id range. Document list must not change while the scan runs, i.e.
+     * the caller holds the read lock.
+     *
+     * @param caller thread that started the scan, its interruption cancels the scan
+     */
+    private BitSet scan(BitSet scope, int from, int to, Predicate<Doc> check, Thread caller) {
+        var result = new BitSet(to);
+        var iteration = 0;
+        for (int id = scope.nextSetBit(from); id >= 0 && id < to; id = scope.nextSetBit(id + 1)) {
+            checkCancelled(iteration++, caller);
+            var doc = docs.get(id);
+            if (doc != null && check.test(doc)) {
+                result.set(id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Splits id range in halves until it is small enough to be scanned by a single task.
+     */
+    private final class ScanTask extends RecursiveTask<BitSet> {
+        private final BitSet scope;
+        private final int from;
+        private final int to;
+        private final Predicate<Doc> check;
+        private final Thread caller;
+
+        ScanTask(BitSet scope, int from, int to, Predicate<Doc> check, Thread caller) {
+            this.scope = scope;
+            this.from = from;
+            this.to = to;
+            this.check = check;
+            this.caller = caller;
+        }
+
+        @Override
+        protected BitSet compute() {
+            if (to - from <= PARALLEL_RANGE) {
+                return scan(scope, from, to, check, caller);
+            }
+            var middle = (from + to) >>> 1;
+            var left = new ScanTask(scope, from, middle, check, caller);
+            left.fork();
+            var result = new ScanTask(scope, middle, to, check, caller).compute();
+            result.or(left.join());
+            return result;
+        }
+    }
+
+    /**
+     * Scores structured query matches.
+     */
+    private Map<WalletRecord, Integer> scores(Query query, BitSet matches) {
+        var texts = Query.rankedTexts(query);
+        var scores = new IdentityHashMap<WalletRecord, Integer>(matches.cardinality());
+        var iteration = 0;
+        for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1)) {
+            checkCancelled(iteration++);
+            var doc = docs.get(id);
+            var score = FuzzyMatcher.ATTRIBUTE_MATCH;
+            for (var text : texts) {
+                score = Math.max(score, FuzzyMatcher.exactScore(doc.texts(), text));
+            }
+            scores.put(doc.record(), score);
+        }
+        return scores;
+    }
+
+    /**
+     * Scores exact matches and finds fuzzy ones.
+     */
+    private Map<WalletRecord, Integer> scores(String query, BitSet matches) {
+        var scores = new IdentityHashMap<WalletRecord, Integer>(matches.cardinality());
+        var iteration = 0;
+        for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1)) {
+            checkCancelled(iteration++);
+            var doc = docs.get(id);
+            scores.put(doc.record(), FuzzyMatcher.exactScore(doc.texts(), query));
+        }
+
+        var maxDistance = FuzzyMatcher.maxDistance(query.length());
+        if (maxDistance == 0) {
+            return scores;
+        }
+
+        var keys = bucketKeys(query);
+        var threshold = Math.clamp(keys.length - GRAM * maxDistance, 1, Byte.MAX_VALUE);
+        var counts = new byte[docs.size()];
+        for (var key : keys) {
+            var list = buckets[key];
+            if (list == null) {
+                continue;
+            }
+            for (int i = 0; i < list.size; i++) {
+                checkCancelled(iteration++);
+                var id = list.ids[i];
+                // Saturated counter, number of query trigrams may exceed byte range
+                if (counts[id] < Byte.MAX_VALUE && ++counts[id] == threshold && !matches.get(id)) {
+                    var doc = docs.get(id);
+                    if (doc != null) {
+                        var score = FuzzyMatcher.fuzzyScore(doc.texts(), query);
+                        if (score != FuzzyMatcher.NO_MATCH) {
+                            scores.put(doc.record(), score);
+                        }
+                    }
+                }
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Returns upper bound of candidates checked by {@link #match(String)}.
+     */
+    private int candidateLimit(String query) {
+        if (query.length() < GRAM) {
+            return docs.size();
+        }
+        var limit = docs.size();
+        for (var key : bucketKeys(query)) {
+            var list = buckets[key];
+            limit = Math.min(limit, list == null ? 0 : list.size);
+        }
+        return limit;
+    }
+
+    /**
+     * Checks previous matches and documents added after the previous filter.
+     */
+    private BitSet refine(String query, Filter previous) {
+        var scope = (BitSet) previous.matches.clone();
+        scope.set(previous.docCount, docs.size());
+        scope.and(live);
+        return scan(scope, doc -> doc.contains(query));
+    }
+
+    /**
+     * Intersects ascending ids with the list in place.
+     *
+     * @return number of remaining ids
+     */
+    private static int intersect(int[] ids, int count, IdList list) {
+        int result = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < list.size; i++) {
+            var id = ids[i];
+            while (j < list.size && list.ids[j] < id) {
+                j++;
+            }
+            if (j < list.size && list.ids[j] == id) {
+                ids[result++] = id;
+            }
+        }
+        return result;
+    }
+
+    private static void checkCancelled(int iteration) {
+        checkCancelled(iteration, Thread.currentThread());
+    }
+
+    private static void checkCancelled(int iteration, Thread caller) {
+        if ((iteration & CANCELLATION_CHECK_MASK) == 0 && caller.isInterrupted()) {
+            throw new CancellationException();
+        }
+    }
+
+    private void index(WalletRecord record) {
+        var doc = new Doc(docs.size(), record, Query.Content.of(record), ++stamp);
+        addDoc(doc);
+
+        for (var key : bucketKeys(doc.texts())) {
+            var list = buckets[key];
+            if (list == null) {
+                list = new IdList();
+                buckets[key] = list;
+            }
+            list.add(doc.id());
+        }
+    }
+
+    private void addDoc(Doc doc) {
+        docs.add(doc);
+        byUuid.put(doc.record().uuid(), doc);
+        updateAttributes(doc, true);
+    }
+
+    private void updateAttributes(Doc doc, boolean set) {
+        var record = doc.record();
+        var id = doc.id();
+        live.set(id, set);
+        for (var name : doc.content().fieldNames()) {
+            updateList(byFieldName, name, id, set);
+        }
+        for (var type : FIELD_TYPES) {
+            if ((doc.content().fieldTypes() & 1 << type.ordinal()) != 0) {
+                update(byFieldType, type, id, set);
+            }
+        }
+        update(byPicture, record.picture(), id, set);
+        for (var flag : Query.Flag.values()) {
+            if (flag.test(record, doc.content())) {
+                update(byFlag, flag, id, set);
+            }
+        }
+        updateList(byModified, record.modified(), id, set);
+    }
+
+    private static <K> void update(Map<K, BitSet> index, K key, int id, boolean set) {
+        if (set) {
+            index.computeIfAbsent(key, _ -> new BitSet()).set(id);
+            return;
+        }
+        var ids = index.get(key);
+        if (ids != null) {
+            ids.clear(id);
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static <K> void updateList(Map<K, IdList> index, K key, int id, boolean set) {
+        if (set) {
+            index.computeIfAbsent(key, _ -> new IdList()).add(id);
+            return;
+        }
+        var ids = index.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.size == 0) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (removedCount < COMPACT_THRESHOLD || removedCount < byUuid.size()) {
+            return;
+        }
+        var live = docs.stream().filter(Objects::nonNull).map(Doc::record).toList();
+        clear();
+        built = true;
+        buckets = new IdList[1 << BUCKET_BITS];
+        live.forEach(this::index);
+    }
+
+    static String normalize(String text) {
+        return text.toLowerCase();
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+        out.writeInt(strings.length);
+        for (var string : strings) {
+            var bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer in) {
+        var strings = new String[readSize(in)];
+        for (int i = 0; i < strings.length; i++) {
+            var bytes = new byte[readSize(in)];
+            in.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    /**
+     * Reads element count, each element takes at least one byte.
+     */
+    private static int readSize(ByteBuffer in) {
+        var size = in.getInt();
+        if (size < 0 || size > in.remaining()) {
+            throw new IllegalArgumentException("Invalid size " + size);
+        }
+        return size;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        var value = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            var b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint is too long");
+    }
+
+    /**
+     * Returns sorted distinct bucket keys of all trigrams of the texts.
+     */
+    private static int[] bucketKeys(String... texts) {
+        var length = 0;
+        for (var text : texts) {
+            length += Math.max(text.length() - GRAM + 1, 0);
+        }
+        var keys = new int[length];
+        var count = 0;
+        for (var text : texts) {
+            for (int i = 0; i + GRAM <= text.length(); i++) {
+                keys[count++] = bucketKey(text.charAt(i), text.charAt(i + 1), text.charAt(i + 2));
+            }
+        }
+        Arrays.sort(keys);
+        var distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || keys[distinct - 1] != keys[i]) {
+                keys[distinct++] = keys[i];
+            }
+        }
+        return Arrays.copyOf(keys, distinct);
+    }
+
+    private static int bucketKey(char c0, char c1, char c2) {
+        var hash = ((long) c0 << 32 | (long) c1 << 16 | c2) * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> (Long.SIZE - BUCKET_BITS)) & BUCKET_MASK;
+    }
+}
@@ -0,0 +1,147 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.search;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Evaluates search queries on background virtual threads. Query is evaluated after the input has been quiet for
+ * the debounce delay, a new query cancels the one in flight. Result is passed to the consumer by the publisher
+ * executor, only if no other query was submitted since. Each query refines the result of the previous
+ * evaluated query when possible.
+ * <p>
+ * Methods must be called on the thread that runs the publisher, i.e. the FX application thread.
+ */
+public final class SearchPipeline implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(SearchPipeline.class.getName());
+
+    private static final int LATENCY_REPORT_INTERVAL = 50;
+    private static final int LATENCY_SAMPLES = 1024;
+
+    private final SearchIndex index;
+    private final Duration debounce;
+    private final Executor publisher;
+    private final Consumer<SearchIndex.Filter> consumer;
+
+    // Last evaluated filter, written by search threads
+    private volatile SearchIndex.Filter lastFilter;
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("search-", 0).factory());
+
+    // Accessed on the owner thread only
+    private long generation;
+    private Future<?> inFlight;
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+
+    /**
+     * Creates search pipeline.
+     *
+     * @param index     search index
+     * @param debounce  delay between the last submitted query and its evaluation
+     * @param publisher executor that runs on the owner thread
+     * @param consumer  consumer of the record filter for the last submitted query
+     */
+    public SearchPipeline(SearchIndex index, Duration debounce, Executor publisher,
+            Consumer<SearchIndex.Filter> consumer)
+    {
+        this.index = index;
+        this.debounce = debounce;
+        this.publisher = publisher;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Submits query cancelling the previous one.
+     *
+     * @param query query
+     */
+    public void submit(String query) {
+        cancel();
+
+        var queryGeneration = generation;
+        inFlight = executor.submit(() -> {
+            try {
+                Thread.sleep(debounce);
+                var start = System.nanoTime();
+                var filter = index.filter(query, lastFilter);
+                lastFilter = filter;
+                publisher.execute(() -> {
+                    if (queryGeneration == generation) {
+                        inFlight = null;
+                        consumer.accept(filter);
+                        recordLatency(System.nanoTime() - start);
+                    }
+                });
+            } catch (InterruptedException | CancellationException ex) {
+                // Superseded by another query
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.SEVERE, "Search failed", ex);
+            }
+        });
+    }
+
+    /**
+     * Cancels query in flight, its result will not be published.
+     */
+    public void cancel() {
+        generation++;
+        if (inFlight != null) {
+            inFlight.cancel(true);
+            inFlight = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        executor.shutdownNow();
+        reportLatency();
+    }
+
+    /**
+     * Records time from the start of evaluation until the result was published.
+     */
+    private void recordLatency(long nanos) {
+        latencies[latencyCount++ % LATENCY_SAMPLES] = nanos;
+        if (latencyCount % LATENCY_REPORT_INTERVAL == 0) {
+            reportLatency();
+        }
+    }
+
+    private void reportLatency() {
+        var size = Math.min(latencyCount, LATENCY_SAMPLES);
+        if (size == 0) {
+            return;
+        }
+        var sorted = Arrays.copyOf(latencies, size);
+        Arrays.sort(sorted);
+        var total = latencyCount;
+        LOGGER.info(() -> String.format("Search latency over last %d of %d queries: p50 %.1f ms, p90 %.1f ms, "
+                        + "p99 %.1f ms, max %.1f ms", size, total,
+                percentile(sorted, 50) / 1e6, percentile(sorted, 90) / 1e6, percentile(sorted, 99) / 1e6,
+                sorted[size - 1] / 1e6));
+    }
+
+    /**
+     * Returns nearest-rank percentile.
+     *
+     * @param sorted     sorted values
+     * @param percentile percentile
+     * @return value
+     */
+    static long percentile(long[] sorted, int percentile) {
+        var rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.clamp(rank - 1, 0, sorted.length - 1)];
+    }
+}
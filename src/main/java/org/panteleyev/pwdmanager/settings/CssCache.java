@@ -0,0 +1,103 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.settings;
+
+import org.panteleyev.pwdmanager.TemplateEngine.Template;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.panteleyev.pwdmanager.Constants.BUILD_INFO_BUNDLE;
+
+/**
+ * Generated style sheets stored on disk. Style sheets are valid only for the key they were written with, the key
+ * is a hash of the template data model and the application build.
+ */
+final class CssCache {
+    private static final Logger LOGGER = Logger.getLogger(CssCache.class.getName());
+
+    static final String KEY_FILE_NAME = "css.key";
+
+    private final Path directory;
+
+    CssCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Reads style sheets generated for the key.
+     *
+     * @param key cache key
+     * @return style sheets or empty if cache is missing, stale or cannot be read
+     */
+    Optional<Map<Template, byte[]>> read(String key) {
+        try {
+            if (!key.equals(Files.readString(directory.resolve(KEY_FILE_NAME), StandardCharsets.UTF_8))) {
+                return Optional.empty();
+            }
+            var result = new EnumMap<Template, byte[]>(Template.class);
+            for (var template : Template.values()) {
+                result.put(template, Files.readAllBytes(directory.resolve(template.getFileName())));
+            }
+            return Optional.of(result);
+        } catch (NoSuchFileException ex) {
+            return Optional.empty();
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Cannot read cached style sheets", ex);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores style sheets. Key file is written last so interrupted write leaves the cache stale but not corrupted.
+     *
+     * @param key    cache key
+     * @param sheets style sheets
+     */
+    void write(String key, Map<Template, byte[]> sheets) {
+        try {
+            Files.createDirectories(directory);
+            Files.deleteIfExists(directory.resolve(KEY_FILE_NAME));
+            for (var entry : sheets.entrySet()) {
+                Files.write(directory.resolve(entry.getKey().getFileName()), entry.getValue());
+            }
+            Files.writeString(directory.resolve(KEY_FILE_NAME), key, StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Cannot write cached style sheets", ex);
+        }
+    }
+
+    /**
+     * Calculates cache key. Build information is included because templates may change between versions.
+     *
+     * @param dataModel template data model
+     * @return cache key
+     */
+    static String key(Map<String, ?> dataModel) {
+        var text = new StringBuilder();
+        for (var name : new String[]{"version", "timestamp"}) {
+            text.append(name).append('=')
+                    .append(BUILD_INFO_BUNDLE.containsKey(name) ? BUILD_INFO_BUNDLE.getString(name) : "")
+                    .append('\n');
+        }
+        new TreeMap<>(dataModel).forEach((name, value) -> text.append(name).append('=').append(value).append('\n'));
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 /*
- Copyright © 2022-2024 Petr Panteleyev <petr@panteleyev.org>
+ Copyright © 2022-2026 Petr Panteleyev <petr@panteleyev.org>
  SPDX-License-Identifier: BSD-2-Clause
  */
 package org.panteleyev.pwdmanager.settings;
 
 import org.panteleyev.commons.xml.XMLEventReaderWrapper;
 import org.panteleyev.commons.xml.XMLStreamWriterWrapper;
+import org.panteleyev.pwdmanager.ValidationPolicy;
+import org.panteleyev.pwdmanager.storage.KeyDerivationAlgorithm;
+import org.panteleyev.pwdmanager.storage.WalletFormat;
 
 import javax.xml.namespace.QName;
 import java.io.InputStream;
@@ -20,7 +23,12 @@ final class GeneralSettings {
     private static final QName ROOT = new QName("settings");
 
     enum Setting {
-        CURRENT_FILE("currentFile", "");
+        CURRENT_FILE("currentFile", ""),
+        JOURNAL("journal", false),
+        WALLET_FORMAT("walletFormat", WalletFormat.XML.name()),
+        KDF_ALGORITHM("kdfAlgorithm", KeyDerivationAlgorithm.DEFAULT.name()),
+        KDF_ITERATIONS("kdfIterations", KeyDerivationAlgorithm.DEFAULT.defaultIterations()),
+        VALIDATION_POLICY("validationPolicy", ValidationPolicy.TRUSTED.name());
 
         private final String elementName;
         private final Object defaultValue;
@@ -70,6 +78,10 @@ final class GeneralSettings {
                         Optional<?> value = Optional.empty();
                         if (key.getDefaultValue() instanceof String) {
                             value = reader.getElementText();
+                        } else if (key.getDefaultValue() instanceof Boolean) {
+                            value = reader.getElementText().map(Boolean::parseBoolean);
+                        } else if (key.getDefaultValue() instanceof Integer) {
+                            value = reader.getElementText().flatMap(GeneralSettings::parseInt);
                         }
                         value.ifPresent(x -> settings.put(key, x));
                     });
@@ -77,4 +89,12 @@ final class GeneralSettings {
             }
         }
     }
+
+    private static Optional<Integer> parseInt(String value) {
+        try {
+            return Optional.of(Integer.parseInt(value));
+        } catch (NumberFormatException ex) {
+            return Optional.empty();
+        }
+    }
 }
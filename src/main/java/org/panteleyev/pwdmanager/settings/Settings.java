@@ -1,4 +1,4 @@
-// Copyright © 2022-2025 Petr Panteleyev
+// Copyright © 2022-2026 Petr Panteleyev
 // SPDX-License-Identifier: BSD-2-Clause
 package org.panteleyev.pwdmanager.settings;
 
@@ -6,11 +6,16 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import org.panteleyev.fx.Controller;
 import org.panteleyev.pwdmanager.ApplicationFiles;
+import org.panteleyev.pwdmanager.StartupTimer;
 import org.panteleyev.pwdmanager.TemplateEngine;
+import org.panteleyev.pwdmanager.ValidationPolicy;
 import org.panteleyev.pwdmanager.model.FieldType;
+import org.panteleyev.pwdmanager.storage.KeyDerivationAlgorithm;
+import org.panteleyev.pwdmanager.storage.WalletFormat;
 
 import java.util.Base64;
 import java.util.Collection;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Consumer;
@@ -22,6 +27,7 @@ import static org.panteleyev.pwdmanager.TemplateEngine.templateEngine;
 
 public final class Settings {
     private final ApplicationFiles files;
+    private final CssCache cssCache;
 
     private final ColorSettings colorSettings = new ColorSettings();
     private final FontSettings fontSettings = new FontSettings();
@@ -35,6 +41,7 @@ public final class Settings {
 
     public Settings(ApplicationFiles files) {
         this.files = files;
+        this.cssCache = new CssCache(files.getCssCacheDirectory());
     }
 
     public void update(Consumer<Settings> block) {
@@ -65,9 +72,19 @@ public final class Settings {
                 entry("actionRestoreColor", colorSettings.getWebString(ColorName.ACTION_RESTORE))
         );
 
-        mainCssEncoded = encode(templateEngine().process(TemplateEngine.Template.MAIN_CSS, dataModel));
-        dialogCssEncoded = encode(templateEngine().process(TemplateEngine.Template.DIALOG_CSS, dataModel));
-        aboutDialogCssEncoded = encode(templateEngine().process(TemplateEngine.Template.ABOUT_DIALOG_CSS, dataModel));
+        var key = CssCache.key(dataModel);
+        var sheets = cssCache.read(key).orElseGet(() -> {
+            var generated = new EnumMap<TemplateEngine.Template, byte[]>(TemplateEngine.Template.class);
+            for (var template : TemplateEngine.Template.values()) {
+                generated.put(template, templateEngine().process(template, dataModel));
+            }
+            cssCache.write(key, generated);
+            return generated;
+        });
+
+        mainCssEncoded = encode(sheets.get(TemplateEngine.Template.MAIN_CSS));
+        dialogCssEncoded = encode(sheets.get(TemplateEngine.Template.DIALOG_CSS));
+        aboutDialogCssEncoded = encode(sheets.get(TemplateEngine.Template.ABOUT_DIALOG_CSS));
     }
 
     private static String encode(byte[] css) {
@@ -93,7 +110,9 @@ public final class Settings {
         files.read(ApplicationFiles.AppFile.PASSWORDS, passwordSettings::load);
         files.read(ApplicationFiles.AppFile.WINDOWS, windowsSettings::load);
         files.read(ApplicationFiles.AppFile.SETTINGS, generalSettings::load);
-        generateCssFiles();
+        try (var _ = StartupTimer.phase("CSS generation")) {
+            generateCssFiles();
+        }
     }
 
     public String getMainCssFilePath() {
@@ -146,6 +165,47 @@ public final class Settings {
         return generalSettings.get(GeneralSettings.Setting.CURRENT_FILE);
     }
 
+    public boolean isJournalEnabled() {
+        return generalSettings.get(GeneralSettings.Setting.JOURNAL);
+    }
+
+    public void setJournalEnabled(boolean journalEnabled) {
+        generalSettings.put(GeneralSettings.Setting.JOURNAL, journalEnabled);
+    }
+
+    public WalletFormat getWalletFormat() {
+        return WalletFormat.of(generalSettings.get(GeneralSettings.Setting.WALLET_FORMAT));
+    }
+
+    public void setWalletFormat(WalletFormat format) {
+        generalSettings.put(GeneralSettings.Setting.WALLET_FORMAT, format.name());
+    }
+
+    public KeyDerivationAlgorithm getKeyDerivationAlgorithm() {
+        return KeyDerivationAlgorithm.of(generalSettings.get(GeneralSettings.Setting.KDF_ALGORITHM));
+    }
+
+    public void setKeyDerivationAlgorithm(KeyDerivationAlgorithm algorithm) {
+        generalSettings.put(GeneralSettings.Setting.KDF_ALGORITHM, algorithm.name());
+    }
+
+    public int getKeyDerivationIterations() {
+        int iterations = generalSettings.get(GeneralSettings.Setting.KDF_ITERATIONS);
+        return Math.clamp(iterations, KeyDerivationAlgorithm.MIN_ITERATIONS, KeyDerivationAlgorithm.MAX_ITERATIONS);
+    }
+
+    public void setKeyDerivationIterations(int iterations) {
+        generalSettings.put(GeneralSettings.Setting.KDF_ITERATIONS, iterations);
+    }
+
+    public ValidationPolicy getValidationPolicy() {
+        return ValidationPolicy.of(generalSettings.get(GeneralSettings.Setting.VALIDATION_POLICY));
+    }
+
+    public void setValidationPolicy(ValidationPolicy policy) {
+        generalSettings.put(GeneralSettings.Setting.VALIDATION_POLICY, policy.name());
+    }
+
     public void loadStageDimensions(Controller controller) {
         windowsSettings.restoreWindowDimensions(controller);
     }
@@ -2,26 +2,38 @@
 // SPDX-License-Identifier: BSD-2-Clause
 package org.panteleyev.pwdmanager.settings;
 
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
+import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.ColorPicker;
 import javafx.scene.control.ComboBox;
+import javafx.scene.control.Control;
 import javafx.scene.control.TabPane;
 import javafx.scene.control.TextField;
 import javafx.scene.text.Font;
+import javafx.util.StringConverter;
 import org.controlsfx.dialog.FontSelectorDialog;
+import org.controlsfx.validation.ValidationResult;
 import org.controlsfx.validation.ValidationSupport;
 import org.panteleyev.fx.BaseDialog;
 import org.panteleyev.fx.Controller;
+import org.panteleyev.pwdmanager.Serializer;
+import org.panteleyev.pwdmanager.ValidationPolicy;
 import org.panteleyev.pwdmanager.model.FieldType;
 import org.panteleyev.pwdmanager.model.ImportAction;
+import org.panteleyev.pwdmanager.storage.KeyDerivationAlgorithm;
+import org.panteleyev.pwdmanager.storage.WalletFormat;
 
+import java.time.Duration;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import static javafx.collections.FXCollections.observableArrayList;
 import static javafx.scene.control.ButtonType.OK;
@@ -43,31 +55,60 @@ import static org.panteleyev.pwdmanager.GlobalContext.settings;
 import static org.panteleyev.pwdmanager.Styles.BIG_SPACING;
 import static org.panteleyev.pwdmanager.Styles.SMALL_SPACING;
 import static org.panteleyev.pwdmanager.Styles.STYLE_GRID_PANE;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_CALIBRATE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_COLORS;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_CONTROLS;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_DIALOGS;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_DIGITS;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_FIELD_NAME;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_FIELD_VALUE;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_FILE_FORMAT;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_FONTS;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_FORMAT_BINARY;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_FORMAT_INDEXED;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_FORMAT_XML;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_IMPORT;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_ITERATIONS;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_JOURNAL;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_KEY_DERIVATION;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_LENGTH;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_LOWER_CASE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_MENU;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_OPTIONS;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_PASSWORDS;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_STORAGE;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_SYMBOLS;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_TEXT;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_UNLOCK_TIME;
 import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_UPPER_CASE;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_VALIDATION_SAMPLED;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_VALIDATION_STRICT;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_VALIDATION_TRUSTED;
+import static org.panteleyev.pwdmanager.bundles.Internationalization.I18N_XML_VALIDATION;
 
 public final class SettingsDialog extends BaseDialog<ButtonType> {
+    private static final int DEFAULT_UNLOCK_TIME = 300;
+
     private final ComboBox<FieldType> typeComboBox = new ComboBox<>();
 
     private final CheckBox digitsCheckBox = new CheckBox(string(UI_BUNDLE, I18N_DIGITS));
     private final CheckBox upperCaseCheckBox = new CheckBox(string(UI_BUNDLE, I18N_UPPER_CASE));
     private final CheckBox lowerCaseCheckBox = new CheckBox(string(UI_BUNDLE, I18N_LOWER_CASE));
     private final CheckBox symbolsCheckBox = new CheckBox(string(UI_BUNDLE, I18N_SYMBOLS));
+    private final CheckBox journalCheckBox = new CheckBox(string(UI_BUNDLE, I18N_JOURNAL));
+    private final ComboBox<WalletFormat> formatComboBox =
+            new ComboBox<>(observableArrayList(WalletFormat.values()));
+    private final ComboBox<ValidationPolicy> validationComboBox =
+            new ComboBox<>(observableArrayList(ValidationPolicy.values()));
     private final ComboBox<Integer> lengthComboBox = new ComboBox<>();
+    private final ComboBox<KeyDerivationAlgorithm> keyDerivationComboBox =
+            new ComboBox<>(observableArrayList(KeyDerivationAlgorithm.values()));
+    private final TextField iterationsField = textField(10);
+    private final ComboBox<Integer> unlockTimeComboBox =
+            new ComboBox<>(observableArrayList(100, 300, 500, 1000, 2000));
+    private final Button calibrateButton = button(string(UI_BUNDLE, I18N_CALIBRATE), _ -> onCalibrate());
+
+    private final ValidationSupport validation = new ValidationSupport();
 
     // Font text fields
     private final TextField controlsFontField = textField(20);
@@ -95,7 +136,7 @@ public final class SettingsDialog extends BaseDialog<ButtonType> {
         loadFont(FontName.MENU_FONT, menuFontField);
         loadFont(FontName.DIALOG_FONT, dialogFontField);
 
-        createDefaultButtons(UI_BUNDLE, new ValidationSupport().invalidProperty());
+        createDefaultButtons(UI_BUNDLE, validation.invalidProperty());
 
         makePasswordOptionsLocalCopy();
 
@@ -119,6 +160,37 @@ public final class SettingsDialog extends BaseDialog<ButtonType> {
         );
         vBox.setPadding(new Insets(BIG_SPACING, 0, BIG_SPACING, 0));
 
+        journalCheckBox.setSelected(settings().isJournalEnabled());
+        formatComboBox.setConverter(converter(format -> string(UI_BUNDLE, switch (format) {
+            case XML -> I18N_FORMAT_XML;
+            case BINARY -> I18N_FORMAT_BINARY;
+            case INDEXED -> I18N_FORMAT_INDEXED;
+        })));
+        formatComboBox.getSelectionModel().select(settings().getWalletFormat());
+        validationComboBox.setConverter(converter(policy -> string(UI_BUNDLE, switch (policy) {
+            case STRICT -> I18N_VALIDATION_STRICT;
+            case SAMPLED -> I18N_VALIDATION_SAMPLED;
+            case TRUSTED -> I18N_VALIDATION_TRUSTED;
+        })));
+        validationComboBox.getSelectionModel().select(settings().getValidationPolicy());
+        keyDerivationComboBox.getSelectionModel().select(settings().getKeyDerivationAlgorithm());
+        keyDerivationComboBox.setOnAction(_ -> iterationsField.setText(
+                Integer.toString(keyDerivationComboBox.getSelectionModel().getSelectedItem().defaultIterations())));
+        iterationsField.setText(Integer.toString(settings().getKeyDerivationIterations()));
+        unlockTimeComboBox.getSelectionModel().select(Integer.valueOf(DEFAULT_UNLOCK_TIME));
+        var storageBox = vBox(BIG_SPACING,
+                hBox(SMALL_SPACING, label(string(UI_BUNDLE, I18N_FILE_FORMAT, COLON)), formatComboBox),
+                hBox(SMALL_SPACING, label(string(UI_BUNDLE, I18N_XML_VALIDATION, COLON)), validationComboBox),
+                journalCheckBox,
+                gridPane(List.of(
+                        gridRow(label(string(UI_BUNDLE, I18N_KEY_DERIVATION, COLON)), keyDerivationComboBox),
+                        gridRow(label(string(UI_BUNDLE, I18N_ITERATIONS, COLON)), iterationsField),
+                        gridRow(label(string(UI_BUNDLE, I18N_UNLOCK_TIME, COLON)), unlockTimeComboBox,
+                                calibrateButton)
+                ), null, List.of(STYLE_GRID_PANE))
+        );
+        storageBox.setPadding(new Insets(BIG_SPACING, 0, BIG_SPACING, 0));
+
         getDialogPane().setContent(
                 new TabPane(
                         tab(string(UI_BUNDLE, I18N_PASSWORDS), vBox),
@@ -161,7 +233,8 @@ public final class SettingsDialog extends BaseDialog<ButtonType> {
                                         gridRow(label(string(ImportAction.RESTORE.toString(), COLON)),
                                                 actionRestoreColorPicker)
                                 ), null, List.of(STYLE_GRID_PANE))
-                        )
+                        ),
+                        tab(string(UI_BUNDLE, I18N_STORAGE), storageBox)
                 )
         );
 
@@ -182,13 +255,56 @@ public final class SettingsDialog extends BaseDialog<ButtonType> {
                     settings.setColor(ColorName.ACTION_RESTORE, actionRestoreColorPicker.getValue());
 
                     settings.setPasswordOptions(passwordOptionsCopy);
+
+                    // Storage
+                    settings.setJournalEnabled(journalCheckBox.isSelected());
+                    settings.setWalletFormat(formatComboBox.getSelectionModel().getSelectedItem());
+                    settings.setValidationPolicy(validationComboBox.getSelectionModel().getSelectedItem());
+                    settings.setKeyDerivationAlgorithm(keyDerivationComboBox.getSelectionModel().getSelectedItem());
+                    settings.setKeyDerivationIterations(Integer.parseInt(iterationsField.getText()));
                 });
 
+                Serializer.setValidationPolicy(settings().getValidationPolicy());
                 settings().generateCssFiles();
                 settings().reloadCssFile();
             }
             return buttonType;
         });
+
+        Platform.runLater(this::setupValidator);
+    }
+
+    private void setupValidator() {
+        validation.registerValidator(iterationsField, (Control c, String value) ->
+                ValidationResult.fromErrorIf(c, null, !isValidIterations(value)));
+        validation.initInitialDecoration();
+    }
+
+    private static boolean isValidIterations(String value) {
+        try {
+            var iterations = Integer.parseInt(value);
+            return iterations >= KeyDerivationAlgorithm.MIN_ITERATIONS
+                    && iterations <= KeyDerivationAlgorithm.MAX_ITERATIONS;
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
+    private void onCalibrate() {
+        var algorithm = keyDerivationComboBox.getSelectionModel().getSelectedItem();
+        var target = Duration.ofMillis(unlockTimeComboBox.getSelectionModel().getSelectedItem());
+
+        // Calibration takes a noticeable time and must not block the UI
+        calibrateButton.setDisable(true);
+        CompletableFuture.supplyAsync(() -> algorithm.calibrate(target))
+                .whenCompleteAsync((iterations, ex) -> {
+                    calibrateButton.setDisable(false);
+                    if (iterations != null
+                            && algorithm == keyDerivationComboBox.getSelectionModel().getSelectedItem())
+                    {
+                        iterationsField.setText(Integer.toString(iterations));
+                    }
+                }, Platform::runLater);
     }
 
     private void updatePasswordControls(FieldType type) {
@@ -246,4 +362,18 @@ public final class SettingsDialog extends BaseDialog<ButtonType> {
         field.setText(String.format("%s %s, %d",
                 font.getFamily(), font.getStyle(), (int) font.getSize()));
     }
+
+    private static <T> StringConverter<T> converter(Function<T, String> names) {
+        return new StringConverter<>() {
+            @Override
+            public String toString(T value) {
+                return value == null ? "" : names.apply(value);
+            }
+
+            @Override
+            public T fromString(String string) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
 }
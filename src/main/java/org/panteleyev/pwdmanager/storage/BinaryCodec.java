@@ -0,0 +1,294 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import org.panteleyev.pwdmanager.model.Card;
+import org.panteleyev.pwdmanager.model.CardType;
+import org.panteleyev.pwdmanager.model.Field;
+import org.panteleyev.pwdmanager.model.FieldType;
+import org.panteleyev.pwdmanager.model.Note;
+import org.panteleyev.pwdmanager.model.Picture;
+import org.panteleyev.pwdmanager.model.WalletRecord;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Compact binary representation of wallet records.
+ * <p>
+ * Layout: magic, version, tables of enum constant names, table of field names, records. Integers are stored as
+ * varints, strings as UTF-8 bytes prefixed by length, dates as epoch days. Enum constants are stored as ordinals
+ * in the file's own name tables rather than in the enum declarations, so adding or reordering constants does
+ * not break existing files.
+ */
+final class BinaryCodec {
+    static final byte[] MAGIC = {'P', 'W', 'M', 'B'};
+
+    private static final int VERSION = 1;
+    private static final int MAX_LENGTH = 64 * 1024 * 1024;
+
+    private static final int RECORD_CARD = 0;
+    private static final int RECORD_NOTE = 1;
+
+    private static final int FLAG_FAVORITE = 1;
+    private static final int FLAG_ACTIVE = 2;
+
+    private static final int VALUE_STRING = 0;
+    private static final int VALUE_DATE = 1;
+    private static final int VALUE_CARD_TYPE = 2;
+
+    private BinaryCodec() {
+    }
+
+    static void write(OutputStream out, List<WalletRecord> records) throws IOException {
+        var fieldNames = new Table<String>();
+        for (var r : records) {
+            if (r instanceof Card card) {
+                for (var f : card.fields()) {
+                    fieldNames.indexOf(f.name());
+                }
+            }
+        }
+
+        var dataOut = new DataOutputStream(out);
+        dataOut.write(MAGIC);
+        writeVarInt(dataOut, VERSION);
+        writeEnumTable(dataOut, FieldType.values());
+        writeEnumTable(dataOut, Picture.values());
+        writeEnumTable(dataOut, CardType.values());
+        writeVarInt(dataOut, fieldNames.size());
+        for (var name : fieldNames.values()) {
+            writeString(dataOut, name);
+        }
+
+        writeVarInt(dataOut, records.size());
+        for (var r : records) {
+            writeRecord(dataOut, r, fieldNames);
+        }
+        dataOut.flush();
+    }
+
+    static List<WalletRecord> read(InputStream in) throws IOException {
+        var dataIn = new DataInputStream(in);
+        var magic = new byte[MAGIC.length];
+        dataIn.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a binary wallet");
+        }
+        var version = readVarInt(dataIn);
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary wallet version " + version);
+        }
+
+        var fieldTypes = readEnumTable(dataIn, FieldType::valueOf);
+        var pictures = readEnumTable(dataIn, Picture::of);
+        var cardTypes = readEnumTable(dataIn, CardType::of);
+        var fieldNames = readTable(dataIn, BinaryCodec::readString);
+
+        var count = readLength(dataIn);
+        var records = new ArrayList<WalletRecord>(count);
+        for (int i = 0; i < count; i++) {
+            var kind = readVarInt(dataIn);
+            var uuid = new UUID(dataIn.readLong(), dataIn.readLong());
+            var modified = readVarLong(dataIn);
+            var flags = readVarInt(dataIn);
+            var name = readString(dataIn);
+            var note = readString(dataIn);
+            var favorite = (flags & FLAG_FAVORITE) != 0;
+            var active = (flags & FLAG_ACTIVE) != 0;
+
+            records.add(switch (kind) {
+                case RECORD_CARD -> {
+                    var picture = get(pictures, readVarInt(dataIn));
+                    var fieldCount = readLength(dataIn);
+                    var fields = new ArrayList<Field>(fieldCount);
+                    for (int j = 0; j < fieldCount; j++) {
+                        var type = get(fieldTypes, readVarInt(dataIn));
+                        var fieldName = get(fieldNames, readVarInt(dataIn));
+                        Object value = switch (readVarInt(dataIn)) {
+                            case VALUE_STRING -> readString(dataIn);
+                            case VALUE_DATE -> LocalDate.ofEpochDay(decodeZigZag(readVarLong(dataIn)));
+                            case VALUE_CARD_TYPE -> get(cardTypes, readVarInt(dataIn));
+                            default -> throw new IOException("Unknown field value kind");
+                        };
+                        fields.add(new Field(type, fieldName, value));
+                    }
+                    yield new Card(uuid, modified, picture, name, fields, note, favorite, active);
+                }
+                case RECORD_NOTE -> new Note(uuid, name, note, favorite, active, modified);
+                default -> throw new IOException("Unknown record kind " + kind);
+            });
+        }
+        return records;
+    }
+
+    private static void writeRecord(DataOutputStream out, WalletRecord record, Table<String> fieldNames)
+            throws IOException
+    {
+        writeVarInt(out, record instanceof Card ? RECORD_CARD : RECORD_NOTE);
+        out.writeLong(record.uuid().getMostSignificantBits());
+        out.writeLong(record.uuid().getLeastSignificantBits());
+        writeVarLong(out, record.modified());
+        writeVarInt(out, (record.favorite() ? FLAG_FAVORITE : 0) | (record.active() ? FLAG_ACTIVE : 0));
+        writeString(out, record.name());
+
+        switch (record) {
+            case Card card -> {
+                writeString(out, card.note());
+                writeVarInt(out, card.picture().ordinal());
+                writeVarInt(out, card.fields().size());
+                for (var f : card.fields()) {
+                    writeVarInt(out, f.type().ordinal());
+                    writeVarInt(out, fieldNames.indexOf(f.name()));
+                    switch (f.value()) {
+                        case LocalDate date -> {
+                            writeVarInt(out, VALUE_DATE);
+                            writeVarLong(out, encodeZigZag(date.toEpochDay()));
+                        }
+                        case CardType cardType -> {
+                            writeVarInt(out, VALUE_CARD_TYPE);
+                            writeVarInt(out, cardType.ordinal());
+                        }
+                        default -> {
+                            writeVarInt(out, VALUE_STRING);
+                            writeString(out, f.value().toString());
+                        }
+                    }
+                }
+            }
+            case Note note -> writeString(out, note.note());
+        }
+    }
+
+    private static void writeEnumTable(DataOutputStream out, Enum<?>[] values) throws IOException {
+        writeVarInt(out, values.length);
+        for (var v : values) {
+            writeString(out, v.name());
+        }
+    }
+
+    private static <E extends Enum<E>> List<E> readEnumTable(DataInputStream in, Function<String, E> resolver)
+            throws IOException
+    {
+        return readTable(in, dataIn -> {
+            var name = readString(dataIn);
+            try {
+                return resolver.apply(name);
+            } catch (IllegalArgumentException ex) {
+                throw new IOException("Unknown constant " + name, ex);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface ElementReader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    private static <T> List<T> readTable(DataInputStream in, ElementReader<T> reader) throws IOException {
+        var size = readLength(in);
+        var table = new ArrayList<T>(size);
+        for (int i = 0; i < size; i++) {
+            table.add(reader.read(in));
+        }
+        return table;
+    }
+
+    private static <T> T get(List<T> table, int index) throws IOException {
+        if (index < 0 || index >= table.size()) {
+            throw new IOException("Invalid table index " + index);
+        }
+        return table.get(index);
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        var bytes = new byte[readLength(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static int readLength(DataInputStream in) throws IOException {
+        var length = readVarInt(in);
+        if (length < 0 || length > MAX_LENGTH) {
+            throw new IOException("Invalid length " + length);
+        }
+        return length;
+    }
+
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    static int readVarInt(DataInputStream in) throws IOException {
+        var value = readVarLong(in);
+        if ((value >>> Integer.SIZE) != 0) {
+            throw new IOException("Varint is too long");
+        }
+        return (int) value;
+    }
+
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            var b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    static long encodeZigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long decodeZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Assigns sequential indexes to distinct values in order of appearance.
+     */
+    private static final class Table<T> {
+        private final Map<T, Integer> indexes = new LinkedHashMap<>();
+
+        int indexOf(T value) {
+            return indexes.computeIfAbsent(value, _ -> indexes.size());
+        }
+
+        int size() {
+            return indexes.size();
+        }
+
+        Iterable<T> values() {
+            return indexes.keySet();
+        }
+    }
+}
@@ -0,0 +1,321 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static org.panteleyev.pwdmanager.storage.BinaryCodec.readLength;
+import static org.panteleyev.pwdmanager.storage.BinaryCodec.readVarInt;
+import static org.panteleyev.pwdmanager.storage.BinaryCodec.writeVarInt;
+
+/**
+ * Encrypted container that splits content into fixed size chunks. The header is followed by a key check block
+ * that rejects a wrong password before any content is read. Each chunk is encrypted with AES-GCM on its own
+ * with a random nonce. Associated data binds the chunk to the file header, its index and the last chunk
+ * flag, so chunks cannot be reordered, replaced or cut off. Chunks are encrypted and decrypted in parallel on
+ * the common fork/join pool while the stream is written or read sequentially.
+ */
+final class ChunkedCipher {
+    static final byte[] MAGIC = {'P', 'W', 'M', 'C'};
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final int VERSION = 1;
+    private static final int MAX_CHUNK_LENGTH = CHUNK_SIZE + 64;
+    private static final int WINDOW = 2 * ForkJoinPool.getCommonPoolParallelism() + 1;
+
+    private ChunkedCipher() {
+    }
+
+    /**
+     * Opens encrypting stream. Header is written immediately.
+     *
+     * @param out output stream, closed when the returned stream is closed
+     * @param key session key
+     * @return encrypting stream
+     * @throws IOException if header cannot be written
+     */
+    static OutputStream encrypt(OutputStream out, SessionKey key) throws IOException {
+        var keyDerivation = key.keyDerivation();
+        var cipher = key.cipher(keyDerivation);
+        var header = header(keyDerivation);
+        var keyCheck = cipher.keyCheck(header);
+
+        var dataOut = new DataOutputStream(out);
+        dataOut.write(header);
+        writeVarInt(dataOut, keyCheck.length);
+        dataOut.write(keyCheck);
+        return new ChunkedOutputStream(out, cipher, header);
+    }
+
+    /**
+     * Opens decrypting stream. Header is read and the key is verified immediately.
+     *
+     * @param in  input stream, closed when the returned stream is closed
+     * @param key session key
+     * @return decrypting stream
+     * @throws WrongPasswordException if key does not match the key check block
+     * @throws IOException            if header cannot be read
+     */
+    static InputStream decrypt(InputStream in, SessionKey key) throws IOException {
+        var dataIn = new DataInputStream(in);
+        var header = readHeader(dataIn, key);
+        return new ChunkedInputStream(dataIn, header.cipher(), header.bytes());
+    }
+
+    /**
+     * Verifies the key against the key check block. Only the header is read, so the cost is one key derivation
+     * at most.
+     *
+     * @param in  input stream positioned at the container start
+     * @param key session key
+     * @return false if key is wrong
+     * @throws IOException if header cannot be read
+     */
+    static boolean checkKey(InputStream in, SessionKey key) throws IOException {
+        try {
+            readHeader(new DataInputStream(in), key);
+            return true;
+        } catch (WrongPasswordException _) {
+            return false;
+        }
+    }
+
+    private static Header readHeader(DataInputStream in, SessionKey key) throws IOException {
+        var magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a chunked container");
+        }
+        var version = readVarInt(in);
+        if (version != VERSION) {
+            throw new IOException("Unsupported container version " + version);
+        }
+        var keyDerivation = KeyDerivation.read(in);
+        var header = header(keyDerivation);
+        var cipher = key.cipher(keyDerivation);
+        var keyCheck = new byte[readLength(in)];
+        in.readFully(keyCheck);
+        cipher.verifyKeyCheck(keyCheck, header);
+        return new Header(header, cipher);
+    }
+
+    private static byte[] header(KeyDerivation keyDerivation) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            out.write(MAGIC);
+            writeVarInt(out, VERSION);
+            keyDerivation.write(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] associatedData(byte[] header, long index, boolean last) {
+        return ByteBuffer.allocate(header.length + Long.BYTES + 1)
+                .put(header)
+                .putLong(index)
+                .put((byte) (last ? 1 : 0))
+                .array();
+    }
+
+    private static byte[] join(ForkJoinTask<byte[]> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        } catch (ExecutionException ex) {
+            // Task exception may be wrapped by the pool
+            for (var cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException ioException) {
+                    throw ioException;
+                }
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    private record Header(byte[] bytes, RecordCipher cipher) {
+    }
+
+    private record Chunk(boolean last, ForkJoinTask<byte[]> task) {
+    }
+
+    private static final class ChunkedOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final RecordCipher cipher;
+        private final byte[] header;
+        private final Deque<Chunk> pending = new ArrayDeque<>();
+
+        private byte[] buffer = new byte[CHUNK_SIZE];
+        private int count;
+        private long chunkIndex;
+        private boolean closed;
+
+        ChunkedOutputStream(OutputStream out, RecordCipher cipher, byte[] header) {
+            this.out = new DataOutputStream(out);
+            this.cipher = cipher;
+            this.header = header;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ensureOpen();
+            while (len > 0) {
+                // Full buffer is kept until more data arrives, the last chunk is submitted on close
+                if (count == CHUNK_SIZE) {
+                    submit(buffer, false);
+                    buffer = new byte[CHUNK_SIZE];
+                    count = 0;
+                }
+                var n = Math.min(len, CHUNK_SIZE - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try (out) {
+                submit(Arrays.copyOf(buffer, count), true);
+                while (!pending.isEmpty()) {
+                    writeChunk();
+                }
+                out.flush();
+            }
+        }
+
+        private void submit(byte[] plain, boolean last) throws IOException {
+            var associatedData = associatedData(header, chunkIndex++, last);
+            pending.add(new Chunk(last,
+                    ForkJoinPool.commonPool().submit(() -> cipher.encrypt(plain, associatedData))));
+            while (pending.size() > WINDOW) {
+                writeChunk();
+            }
+        }
+
+        private void writeChunk() throws IOException {
+            var chunk = pending.removeFirst();
+            var bytes = join(chunk.task());
+            out.writeByte(chunk.last() ? 1 : 0);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+        }
+    }
+
+    private static final class ChunkedInputStream extends InputStream {
+        private final DataInputStream in;
+        private final RecordCipher cipher;
+        private final byte[] header;
+        private final Deque<ForkJoinTask<byte[]>> ahead = new ArrayDeque<>();
+
+        private byte[] current = new byte[0];
+        private int position;
+        private long chunkIndex;
+        private boolean lastRead;
+
+        ChunkedInputStream(DataInputStream in, RecordCipher cipher, byte[] header) {
+            this.in = in;
+            this.cipher = cipher;
+            this.header = header;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!ensureData()) {
+                return -1;
+            }
+            return current[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!ensureData()) {
+                return -1;
+            }
+            var n = Math.min(len, current.length - position);
+            System.arraycopy(current, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return current.length - position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            ahead.forEach(task -> task.cancel(false));
+            ahead.clear();
+            in.close();
+        }
+
+        private boolean ensureData() throws IOException {
+            while (position == current.length) {
+                while (!lastRead && ahead.size() < WINDOW) {
+                    readChunk();
+                }
+                if (ahead.isEmpty()) {
+                    return false;
+                }
+                current = join(ahead.removeFirst());
+                position = 0;
+            }
+            return true;
+        }
+
+        private void readChunk() throws IOException {
+            var flag = in.read();
+            if (flag == -1) {
+                throw new IOException("Container is truncated");
+            }
+            var length = in.readInt();
+            if (length < 0 || length > MAX_CHUNK_LENGTH) {
+                throw new IOException("Invalid chunk length " + length);
+            }
+            var bytes = new byte[length];
+            in.readFully(bytes);
+
+            lastRead = flag == 1;
+            if (lastRead && in.read() != -1) {
+                throw new IOException("Unexpected data after the last chunk");
+            }
+
+            var associatedData = associatedData(header, chunkIndex++, lastRead);
+            ahead.add(ForkJoinPool.commonPool().submit(
+                    () -> cipher.decrypt(bytes, 0, bytes.length, associatedData)));
+        }
+    }
+}
@@ -0,0 +1,373 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import org.panteleyev.pwdmanager.model.Card;
+import org.panteleyev.pwdmanager.model.CardType;
+import org.panteleyev.pwdmanager.model.Field;
+import org.panteleyev.pwdmanager.model.FieldType;
+import org.panteleyev.pwdmanager.model.Note;
+import org.panteleyev.pwdmanager.model.Picture;
+import org.panteleyev.pwdmanager.model.WalletRecord;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.UUID;
+
+import static org.panteleyev.pwdmanager.storage.BinaryCodec.decodeZigZag;
+import static org.panteleyev.pwdmanager.storage.BinaryCodec.encodeZigZag;
+import static org.panteleyev.pwdmanager.storage.BinaryCodec.readLength;
+import static org.panteleyev.pwdmanager.storage.BinaryCodec.readString;
+import static org.panteleyev.pwdmanager.storage.BinaryCodec.readVarInt;
+import static org.panteleyev.pwdmanager.storage.BinaryCodec.readVarLong;
+import static org.panteleyev.pwdmanager.storage.BinaryCodec.writeString;
+import static org.panteleyev.pwdmanager.storage.BinaryCodec.writeVarInt;
+import static org.panteleyev.pwdmanager.storage.BinaryCodec.writeVarLong;
+
+/**
+ * Wallet layout with records encrypted one by one.
+ * <p>
+ * Layout: magic, version, flags, key derivation algorithm and parameters, key check block, encrypted index,
+ * encrypted card bodies. The index holds everything needed to display the record list, card fields are stored
+ * in separate bodies. Bodies are decrypted when card fields are accessed for the first time, recently used
+ * bodies are cached. Bodies of cards that were not changed are copied to the new file without decryption when
+ * written with the same session key.
+ * <p>
+ * Unlike other formats, the whole file is kept in memory while its records are in use, since encrypted bodies
+ * are needed both for lazy decryption and for copying on save. The file is written from memory as well.
+ */
+final class IndexedCodec {
+    static final byte[] MAGIC = {'P', 'W', 'M', 'I'};
+
+    private static final int VERSION = 1;
+    private static final int FLAG_ENCRYPTED = 1;
+
+    private static final int RECORD_CARD = 0;
+    private static final int RECORD_NOTE = 1;
+
+    private static final int FLAG_FAVORITE = 1;
+    private static final int FLAG_ACTIVE = 2;
+
+    private static final int VALUE_STRING = 0;
+    private static final int VALUE_DATE = 1;
+    private static final int VALUE_CARD_TYPE = 2;
+
+    private static final int CACHE_SIZE = 256;
+
+    private IndexedCodec() {
+    }
+
+    static void write(OutputStream out, SessionKey key, List<WalletRecord> records) throws IOException {
+        var keyDerivation = key.keyDerivation();
+        var cipher = key.cipher(keyDerivation);
+
+        var bodies = new ByteArrayOutputStream();
+        var indexBytes = new ByteArrayOutputStream();
+        try (var index = new DataOutputStream(indexBytes)) {
+            writeVarInt(index, records.size());
+            for (var r : records) {
+                writeVarInt(index, r instanceof Card ? RECORD_CARD : RECORD_NOTE);
+                index.writeLong(r.uuid().getMostSignificantBits());
+                index.writeLong(r.uuid().getLeastSignificantBits());
+                writeVarLong(index, r.modified());
+                writeVarInt(index, (r.favorite() ? FLAG_FAVORITE : 0) | (r.active() ? FLAG_ACTIVE : 0));
+                writeString(index, r.name());
+
+                switch (r) {
+                    case Card card -> {
+                        // Card note is a string component of the model and has to be available on load
+                        writeString(index, card.note());
+                        writeString(index, card.picture().name());
+
+                        byte[] body;
+                        // Body is bound to the record uuid, copied cards have to be encrypted again
+                        if (card.fields() instanceof LazyFields lazy && lazy.bodies.isEncryptedWith(key, keyDerivation)
+                                && lazy.uuid.equals(card.uuid()))
+                        {
+                            body = lazy.rawBody();
+                        } else {
+                            body = cipher.encrypt(encodeFields(card.fields()), uuidBytes(card.uuid()));
+                        }
+                        writeVarInt(index, card.fields().size());
+                        writeVarInt(index, bodies.size());
+                        writeVarInt(index, body.length);
+                        bodies.write(body);
+                    }
+                    case Note note -> writeString(index, note.note());
+                }
+            }
+        }
+
+        var header = header(key.isEmpty() ? 0 : FLAG_ENCRYPTED, keyDerivation);
+        var keyCheck = cipher.keyCheck(header);
+        var encryptedIndex = cipher.encrypt(indexBytes.toByteArray(), header);
+
+        var dataOut = new DataOutputStream(out);
+        dataOut.write(header);
+        writeVarInt(dataOut, keyCheck.length);
+        dataOut.write(keyCheck);
+        writeVarInt(dataOut, encryptedIndex.length);
+        dataOut.write(encryptedIndex);
+        bodies.writeTo(dataOut);
+        dataOut.flush();
+    }
+
+    static List<WalletRecord> read(byte[] data, SessionKey key) throws IOException {
+        var bytes = new ByteArrayInputStream(data);
+        var in = new DataInputStream(bytes);
+        var header = readHeader(in, key);
+        var cipher = header.cipher();
+
+        var indexLength = readLength(in);
+        var indexOffset = data.length - bytes.available();
+        var bodiesOffset = indexOffset + indexLength;
+        if (bodiesOffset > data.length) {
+            throw new IOException("Truncated index");
+        }
+        var bodies = new RecordBodies(data, key, header.keyDerivation(), cipher);
+
+        var index = new DataInputStream(new ByteArrayInputStream(
+                cipher.decrypt(data, indexOffset, indexLength, header.bytes())));
+        var count = readLength(index);
+        var records = new ArrayList<WalletRecord>(count);
+        for (int i = 0; i < count; i++) {
+            var kind = readVarInt(index);
+            var uuid = new UUID(index.readLong(), index.readLong());
+            var modified = readVarLong(index);
+            var recordFlags = readVarInt(index);
+            var name = readString(index);
+            var note = readString(index);
+            var favorite = (recordFlags & FLAG_FAVORITE) != 0;
+            var active = (recordFlags & FLAG_ACTIVE) != 0;
+
+            records.add(switch (kind) {
+                case RECORD_CARD -> {
+                    var picture = Picture.of(readString(index));
+                    var size = readLength(index);
+                    var offset = readLength(index);
+                    var length = readLength(index);
+                    if (bodiesOffset + (long) offset + length > data.length) {
+                        throw new IOException("Truncated record body");
+                    }
+                    var fields = new LazyFields(bodies, uuid, bodiesOffset + offset, length, size);
+                    yield new Card(uuid, modified, picture, name, fields, note, favorite, active);
+                }
+                case RECORD_NOTE -> new Note(uuid, name, note, favorite, active, modified);
+                default -> throw new IOException("Unknown record kind " + kind);
+            });
+        }
+        return records;
+    }
+
+    /**
+     * Verifies the key against the key check block. Only the header is read, so the cost is one key derivation
+     * at most.
+     *
+     * @param in  input stream positioned at the file start
+     * @param key session key
+     * @return false if key is wrong
+     * @throws IOException if header cannot be read
+     */
+    static boolean checkKey(InputStream in, SessionKey key) throws IOException {
+        try {
+            readHeader(new DataInputStream(in), key);
+            return true;
+        } catch (WrongPasswordException _) {
+            return false;
+        }
+    }
+
+    static boolean isLazy(List<Field> fields) {
+        return fields instanceof LazyFields;
+    }
+
+    private static Header readHeader(DataInputStream in, SessionKey key) throws IOException {
+        var magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not an indexed wallet");
+        }
+        var version = readVarInt(in);
+        if (version != VERSION) {
+            throw new IOException("Unsupported indexed wallet version " + version);
+        }
+        var flags = readVarInt(in);
+        var keyDerivation = KeyDerivation.read(in);
+        var header = header(flags, keyDerivation);
+
+        var encrypted = (flags & FLAG_ENCRYPTED) != 0;
+        if (encrypted && key.isEmpty()) {
+            throw new WrongPasswordException();
+        }
+        if (!encrypted && !key.isEmpty()) {
+            throw new IOException("File is not encrypted");
+        }
+
+        var cipher = key.cipher(keyDerivation);
+        var keyCheck = new byte[readLength(in)];
+        in.readFully(keyCheck);
+        cipher.verifyKeyCheck(keyCheck, header);
+        return new Header(header, keyDerivation, cipher);
+    }
+
+    private static byte[] header(int flags, KeyDerivation keyDerivation) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            out.write(MAGIC);
+            writeVarInt(out, VERSION);
+            writeVarInt(out, flags);
+            keyDerivation.write(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] uuidBytes(UUID uuid) {
+        return ByteBuffer.allocate(2 * Long.BYTES)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    private static byte[] encodeFields(List<Field> fields) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            writeVarInt(out, fields.size());
+            for (var f : fields) {
+                writeString(out, f.type().name());
+                writeString(out, f.name());
+                switch (f.value()) {
+                    case LocalDate date -> {
+                        writeVarInt(out, VALUE_DATE);
+                        writeVarLong(out, encodeZigZag(date.toEpochDay()));
+                    }
+                    case CardType cardType -> {
+                        writeVarInt(out, VALUE_CARD_TYPE);
+                        writeString(out, cardType.name());
+                    }
+                    default -> {
+                        writeVarInt(out, VALUE_STRING);
+                        writeString(out, f.value().toString());
+                    }
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<Field> decodeFields(byte[] body) throws IOException {
+        var in = new DataInputStream(new ByteArrayInputStream(body));
+        var count = readLength(in);
+        var fields = new ArrayList<Field>(count);
+        for (int i = 0; i < count; i++) {
+            FieldType type;
+            try {
+                type = FieldType.valueOf(readString(in));
+            } catch (IllegalArgumentException ex) {
+                throw new IOException(ex);
+            }
+            var name = readString(in);
+            Object value = switch (readVarInt(in)) {
+                case VALUE_STRING -> readString(in);
+                case VALUE_DATE -> LocalDate.ofEpochDay(decodeZigZag(readVarLong(in)));
+                case VALUE_CARD_TYPE -> CardType.of(readString(in));
+                default -> throw new IOException("Unknown field value kind");
+            };
+            fields.add(new Field(type, name, value));
+        }
+        return List.copyOf(fields);
+    }
+
+    private record Header(byte[] bytes, KeyDerivation keyDerivation, RecordCipher cipher) {
+    }
+
+    /**
+     * Encrypted bodies of one file with a cache of decrypted ones.
+     */
+    private static final class RecordBodies {
+        private final byte[] data;
+        private final SessionKey key;
+        private final KeyDerivation keyDerivation;
+        private final RecordCipher cipher;
+
+        private final Map<UUID, List<Field>> cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, List<Field>> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+
+        RecordBodies(byte[] data, SessionKey key, KeyDerivation keyDerivation, RecordCipher cipher) {
+            this.data = data;
+            this.key = key;
+            this.keyDerivation = keyDerivation;
+            this.cipher = cipher;
+        }
+
+        boolean isEncryptedWith(SessionKey key, KeyDerivation keyDerivation) {
+            return this.key == key && this.keyDerivation.equals(keyDerivation);
+        }
+
+        synchronized List<Field> fields(UUID uuid, int offset, int length) {
+            // Decrypted bodies are not available after the key is wiped either
+            key.ensureOpen();
+            var fields = cache.get(uuid);
+            if (fields == null) {
+                try {
+                    fields = decodeFields(cipher.decrypt(data, offset, length, uuidBytes(uuid)));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                cache.put(uuid, fields);
+            }
+            return fields;
+        }
+    }
+
+    /**
+     * Card fields backed by the encrypted body.
+     */
+    private static final class LazyFields extends AbstractList<Field> implements RandomAccess {
+        private final RecordBodies bodies;
+        private final UUID uuid;
+        private final int offset;
+        private final int length;
+        private final int size;
+
+        LazyFields(RecordBodies bodies, UUID uuid, int offset, int length, int size) {
+            this.bodies = bodies;
+            this.uuid = uuid;
+            this.offset = offset;
+            this.length = length;
+            this.size = size;
+        }
+
+        @Override
+        public Field get(int index) {
+            return bodies.fields(uuid, offset, length).get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        byte[] rawBody() {
+            return Arrays.copyOfRange(bodies.data, offset, offset + length);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import static java.util.Objects.requireNonNull;
+import static org.panteleyev.pwdmanager.storage.BinaryCodec.readLength;
+import static org.panteleyev.pwdmanager.storage.BinaryCodec.readVarInt;
+import static org.panteleyev.pwdmanager.storage.BinaryCodec.writeVarInt;
+
+/**
+ * Password based key derivation parameters stored in the file header.
+ *
+ * @param algorithm  key derivation function
+ * @param salt       salt
+ * @param iterations iteration count
+ */
+record KeyDerivation(KeyDerivationAlgorithm algorithm, byte[] salt, int iterations) {
+    static final int SALT_SIZE = 16;
+
+    private static final Logger LOGGER = Logger.getLogger(KeyDerivation.class.getName());
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    KeyDerivation {
+        requireNonNull(algorithm);
+        requireNonNull(salt);
+        // Upper limit protects from files that would take forever to open
+        if (iterations <= 0 || iterations > KeyDerivationAlgorithm.MAX_ITERATIONS) {
+            throw new IllegalArgumentException("Invalid iteration count " + iterations);
+        }
+    }
+
+    /**
+     * Creates parameters with a new random salt and default algorithm.
+     *
+     * @return key derivation parameters
+     */
+    static KeyDerivation random() {
+        return random(KeyDerivationAlgorithm.DEFAULT, KeyDerivationAlgorithm.DEFAULT.defaultIterations());
+    }
+
+    /**
+     * Creates parameters with a new random salt.
+     *
+     * @param algorithm  key derivation function
+     * @param iterations iteration count
+     * @return key derivation parameters
+     */
+    static KeyDerivation random(KeyDerivationAlgorithm algorithm, int iterations) {
+        var salt = new byte[SALT_SIZE];
+        RANDOM.nextBytes(salt);
+        return new KeyDerivation(algorithm, salt, iterations);
+    }
+
+    /**
+     * Reads parameters written by {@link #write(DataOutputStream)}.
+     *
+     * @param in input stream
+     * @return key derivation parameters
+     * @throws IOException if parameters cannot be read or are invalid
+     */
+    static KeyDerivation read(DataInputStream in) throws IOException {
+        try {
+            var algorithm = KeyDerivationAlgorithm.ofId(readVarInt(in));
+            var salt = new byte[readLength(in)];
+            in.readFully(salt);
+            return new KeyDerivation(algorithm, salt, readVarInt(in));
+        } catch (IllegalArgumentException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        writeVarInt(out, algorithm.id());
+        writeVarInt(out, salt.length);
+        out.write(salt);
+        writeVarInt(out, iterations);
+    }
+
+    /**
+     * Derives AES key from the password. This is intentionally slow.
+     *
+     * @param password password
+     * @return raw AES key
+     */
+    byte[] deriveKey(char[] password) {
+        var start = System.nanoTime();
+        var key = algorithm.derive(password, salt, iterations);
+        var millis = (System.nanoTime() - start) / 1_000_000;
+        LOGGER.info(() -> "Key derived with " + algorithm + ", " + iterations + " iterations in " + millis + " ms");
+        return key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof KeyDerivation(var otherAlgorithm, var otherSalt, var otherIterations)
+                && algorithm == otherAlgorithm && iterations == otherIterations && Arrays.equals(salt, otherSalt);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * algorithm.hashCode() + Arrays.hashCode(salt)) + iterations;
+    }
+}
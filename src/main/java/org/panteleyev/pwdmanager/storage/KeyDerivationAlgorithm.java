@@ -0,0 +1,122 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * Password based key derivation functions. Identifiers are stored in file headers and must not be changed.
+ */
+public enum KeyDerivationAlgorithm {
+    PBKDF2_SHA256(1, "PBKDF2WithHmacSHA256", "PBKDF2-HMAC-SHA256", 600_000),
+    PBKDF2_SHA512(2, "PBKDF2WithHmacSHA512", "PBKDF2-HMAC-SHA512", 210_000);
+
+    public static final KeyDerivationAlgorithm DEFAULT = PBKDF2_SHA256;
+
+    public static final int MIN_ITERATIONS = 100_000;
+    public static final int MAX_ITERATIONS = 100_000_000;
+
+    private static final Logger LOGGER = Logger.getLogger(KeyDerivationAlgorithm.class.getName());
+
+    private static final int KEY_SIZE = 256;
+    private static final int CALIBRATION_ITERATIONS = 10_000;
+    private static final long MIN_SAMPLE_NANOS = Duration.ofMillis(100).toNanos();
+    private static final int ITERATIONS_STEP = 1_000;
+
+    private final int id;
+    private final String jcaName;
+    private final String displayName;
+    private final int defaultIterations;
+
+    KeyDerivationAlgorithm(int id, String jcaName, String displayName, int defaultIterations) {
+        this.id = id;
+        this.jcaName = jcaName;
+        this.displayName = displayName;
+        this.defaultIterations = defaultIterations;
+    }
+
+    /**
+     * Returns iteration count recommended for the algorithm regardless of the machine speed.
+     *
+     * @return iteration count
+     */
+    public int defaultIterations() {
+        return defaultIterations;
+    }
+
+    /**
+     * Measures key derivation on this machine and returns iteration count that takes approximately the target
+     * time. The result is limited by {@link #MIN_ITERATIONS} and {@link #MAX_ITERATIONS}. This method takes at
+     * least a few hundred milliseconds and must not be called on the UI thread.
+     *
+     * @param target target key derivation time
+     * @return iteration count
+     */
+    public int calibrate(Duration target) {
+        var password = "calibration".toCharArray();
+        var salt = new byte[KeyDerivation.SALT_SIZE];
+
+        // Sample grows until it is long enough to be measured reliably, first runs also warm up the code
+        long iterations = CALIBRATION_ITERATIONS;
+        long elapsed;
+        while (true) {
+            var start = System.nanoTime();
+            Arrays.fill(derive(password, salt, (int) iterations), (byte) 0);
+            elapsed = Math.max(System.nanoTime() - start, 1);
+            if (elapsed >= MIN_SAMPLE_NANOS || iterations >= MAX_ITERATIONS) {
+                break;
+            }
+            iterations *= 2;
+        }
+
+        var result = target.toNanos() * iterations / elapsed / ITERATIONS_STEP * ITERATIONS_STEP;
+        var calibrated = (int) Math.clamp(result, MIN_ITERATIONS, MAX_ITERATIONS);
+        var sampleIterations = iterations;
+        var sampleMillis = elapsed / 1_000_000;
+        LOGGER.info(() -> "Calibrated " + displayName + ": " + sampleIterations + " iterations in "
+                + sampleMillis + " ms, " + calibrated + " iterations for " + target.toMillis() + " ms");
+        return calibrated;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+
+    int id() {
+        return id;
+    }
+
+    byte[] derive(char[] password, byte[] salt, int iterations) {
+        var spec = new PBEKeySpec(password, salt, iterations, KEY_SIZE);
+        try {
+            return SecretKeyFactory.getInstance(jcaName).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    static KeyDerivationAlgorithm ofId(int id) {
+        for (var algorithm : values()) {
+            if (algorithm.id == id) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown key derivation algorithm " + id);
+    }
+
+    public static KeyDerivationAlgorithm of(String value) {
+        try {
+            return KeyDerivationAlgorithm.valueOf(value);
+        } catch (Exception ex) {
+            return DEFAULT;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Input stream fed by a producer running on a virtual thread. Data is handed over in chunks through a bounded
+ * queue, so producer and consumer work concurrently while memory usage stays constant.
+ */
+final class PipelineInputStream extends InputStream {
+    @FunctionalInterface
+    interface Producer {
+        void produce(OutputStream out) throws IOException;
+    }
+
+    private static final byte[] END_OF_STREAM = new byte[0];
+
+    private final BlockingQueue<byte[]> queue;
+    private final Thread producerThread;
+
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    private byte[] chunk = new byte[0];
+    private int position;
+    private boolean endOfStream;
+
+    PipelineInputStream(Producer producer, int chunkSize, int capacity) {
+        queue = new ArrayBlockingQueue<>(capacity);
+        producerThread = Thread.ofVirtual()
+                .name("pipeline-producer")
+                .start(() -> runProducer(producer, chunkSize));
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureData()) {
+            return -1;
+        }
+        return chunk[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+        var count = Math.min(len, chunk.length - position);
+        System.arraycopy(chunk, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            producerThread.interrupt();
+            queue.clear();
+        }
+    }
+
+    private boolean ensureData() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (position >= chunk.length) {
+            if (endOfStream) {
+                return false;
+            }
+            try {
+                chunk = queue.take();
+                position = 0;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            if (chunk == END_OF_STREAM) {
+                endOfStream = true;
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void runProducer(Producer producer, int chunkSize) {
+        try (var out = new BufferedOutputStream(new QueueOutputStream(), chunkSize)) {
+            producer.produce(out);
+        } catch (IOException ex) {
+            failure = ex;
+        } catch (RuntimeException ex) {
+            failure = new IOException(ex);
+        }
+
+        if (!closed) {
+            try {
+                queue.put(END_OF_STREAM);
+            } catch (InterruptedException _) {
+                // Consumer has gone
+            }
+        }
+    }
+
+    private final class QueueOutputStream extends OutputStream {
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("Pipeline closed by consumer");
+            }
+            if (len == 0) {
+                return;
+            }
+            try {
+                queue.put(Arrays.copyOfRange(b, off, off + len));
+            } catch (InterruptedException ex) {
+                throw new InterruptedIOException("Pipeline closed by consumer");
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * AES-GCM encryption of small independent blocks. Each block is stored as a random nonce followed by the
+ * ciphertext and the authentication tag. Associated data binds a block to its place in the file.
+ */
+final class RecordCipher {
+    static final int NONCE_SIZE = 12;
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int TAG_SIZE = 128;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Cipher for files without password, blocks are stored as is.
+     */
+    static final RecordCipher NONE = new RecordCipher(null);
+
+    private final SecretKey key;
+
+    RecordCipher(SecretKey key) {
+        this.key = key;
+    }
+
+    byte[] encrypt(byte[] plain, byte[] associatedData) throws IOException {
+        if (key == null) {
+            return plain;
+        }
+
+        var nonce = new byte[NONCE_SIZE];
+        RANDOM.nextBytes(nonce);
+        try {
+            var cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_SIZE, nonce));
+            cipher.updateAAD(associatedData);
+            var result = Arrays.copyOf(nonce, NONCE_SIZE + cipher.getOutputSize(plain.length));
+            cipher.doFinal(plain, 0, plain.length, result, NONCE_SIZE);
+            return result;
+        } catch (GeneralSecurityException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Creates key check block. It contains no data and only proves the key, so a wrong password is detected
+     * before the file content is read.
+     *
+     * @param associatedData file header
+     * @return key check block, empty if there is no encryption
+     * @throws IOException if block cannot be encrypted
+     */
+    byte[] keyCheck(byte[] associatedData) throws IOException {
+        return encrypt(new byte[0], associatedData);
+    }
+
+    /**
+     * Verifies key check block created by {@link #keyCheck(byte[])}.
+     *
+     * @param block          key check block
+     * @param associatedData file header
+     * @throws WrongPasswordException if block was created with another key
+     */
+    void verifyKeyCheck(byte[] block, byte[] associatedData) throws WrongPasswordException {
+        try {
+            if (decrypt(block, 0, block.length, associatedData).length == 0) {
+                return;
+            }
+        } catch (IOException _) {
+            // Falls through
+        }
+        throw new WrongPasswordException();
+    }
+
+    byte[] decrypt(byte[] data, int offset, int length, byte[] associatedData) throws IOException {
+        if (key == null) {
+            return Arrays.copyOfRange(data, offset, offset + length);
+        }
+        if (length < NONCE_SIZE) {
+            throw new IOException("Encrypted block is too short");
+        }
+
+        try {
+            var cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_SIZE, data, offset, NONCE_SIZE));
+            cipher.updateAAD(associatedData);
+            return cipher.doFinal(data, offset + NONCE_SIZE, length - NONCE_SIZE);
+        } catch (AEADBadTagException ex) {
+            throw new IOException("Wrong password or damaged file", ex);
+        } catch (GeneralSecurityException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Decrypts block from the buffer, e.g. a memory mapped file, without copying it to the heap first.
+     *
+     * @param data           remaining bytes of the buffer are the block
+     * @param associatedData associated data of the block
+     * @return decrypted block, the buffer itself if there is no encryption
+     * @throws IOException if block cannot be decrypted
+     */
+    ByteBuffer decrypt(ByteBuffer data, byte[] associatedData) throws IOException {
+        if (key == null) {
+            return data;
+        }
+        if (data.remaining() < NONCE_SIZE) {
+            throw new IOException("Encrypted block is too short");
+        }
+
+        var input = data.duplicate();
+        var nonce = new byte[NONCE_SIZE];
+        input.get(nonce);
+        try {
+            var cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_SIZE, nonce));
+            cipher.updateAAD(associatedData);
+            var output = ByteBuffer.allocate(cipher.getOutputSize(input.remaining()));
+            cipher.doFinal(input, output);
+            return output.flip();
+        } catch (AEADBadTagException ex) {
+            throw new IOException("Wrong password or damaged file", ex);
+        } catch (GeneralSecurityException ex) {
+            throw new IOException(ex);
+        }
+    }
+}
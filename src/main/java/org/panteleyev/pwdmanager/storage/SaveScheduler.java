@@ -0,0 +1,196 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import org.panteleyev.pwdmanager.model.WalletRecord;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Single writer for wallet files. Saves are executed on a dedicated virtual thread in submission order.
+ * Save requests that arrive while the previous request is still waiting in the queue are collapsed into one
+ * write of the latest snapshot.
+ * <p>
+ * Single record changes can be appended to the journal instead of rewriting the whole file. When the journal
+ * grows beyond the threshold the snapshot is written as a new checkpoint and the journal is discarded.
+ */
+public final class SaveScheduler implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(SaveScheduler.class.getName());
+
+    private static final long COMPACTION_THRESHOLD = 1024 * 1024;
+
+    /**
+     * Immutable state of the wallet to be saved.
+     *
+     * @param file    wallet file
+     * @param key     session key
+     * @param records records
+     * @param format  file format
+     */
+    public record Snapshot(Path file, SessionKey key, List<WalletRecord> records, WalletFormat format) {
+        public Snapshot {
+            requireNonNull(file);
+            requireNonNull(key);
+            requireNonNull(format);
+            records = List.copyOf(records);
+        }
+
+        public Snapshot(Path file, SessionKey key, List<WalletRecord> records) {
+            this(file, key, records, WalletFormat.XML);
+        }
+    }
+
+    private static final class PendingSave {
+        private Snapshot snapshot;
+        private int requests = 1;
+        private boolean taken;
+
+        PendingSave(Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
+
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(Thread.ofVirtual().name("wallet-writer").factory());
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    private final Object lock = new Object();
+    // Last queued save that has not started yet, guarded by lock
+    private PendingSave pending;
+
+    /**
+     * Schedules saving of the snapshot.
+     *
+     * @param snapshot wallet snapshot
+     */
+    public void save(Snapshot snapshot) {
+        synchronized (lock) {
+            if (pending != null && !pending.taken) {
+                pending.snapshot = snapshot;
+                pending.requests++;
+                return;
+            }
+
+            var save = new PendingSave(snapshot);
+            pending = save;
+            queueDepth.incrementAndGet();
+            executor.execute(() -> write(save));
+        }
+    }
+
+    /**
+     * Schedules appending of the change to the journal.
+     *
+     * @param snapshot wallet snapshot including the change, used as a checkpoint when journal is too big
+     * @param entry    change
+     */
+    public void append(Snapshot snapshot, WalletJournal.Entry entry) {
+        requireNonNull(entry);
+        synchronized (lock) {
+            // Following saves must not be merged into saves queued before this entry
+            pending = null;
+            queueDepth.incrementAndGet();
+            executor.execute(() -> writeEntry(snapshot, entry));
+        }
+    }
+
+    /**
+     * Computes content checksum of the wallet file after all saves scheduled so far are written. Saves scheduled
+     * later do not affect the result.
+     *
+     * @param file wallet file
+     * @return checksum, see {@link SearchIndexFile#checksum(Path)}
+     */
+    public Future<byte[]> checksum(Path file) {
+        return executor.submit(() -> SearchIndexFile.checksum(file));
+    }
+
+    /**
+     * Waits until all scheduled saves are written.
+     */
+    public void flush() {
+        try {
+            executor.submit(() -> {
+            }).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            LOGGER.log(Level.SEVERE, "Unexpected exception while flushing saves", ex);
+        }
+    }
+
+    /**
+     * Writes all scheduled saves and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.severe("Timeout while waiting for pending saves");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(PendingSave save) {
+        Snapshot snapshot;
+        int requests;
+        synchronized (lock) {
+            save.taken = true;
+            snapshot = save.snapshot;
+            requests = save.requests;
+        }
+
+        var start = System.nanoTime();
+        try {
+            WalletFiles.write(snapshot.file(), snapshot.key(), snapshot.records(), snapshot.format());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            var depth = queueDepth.decrementAndGet();
+            var millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            LOGGER.info(() -> String.format("Saved %d records in %d ms, requests: %d, queue depth: %d",
+                    snapshot.records().size(), millis, requests, depth));
+        }
+    }
+
+    private void writeEntry(Snapshot snapshot, WalletJournal.Entry entry) {
+        var start = System.nanoTime();
+        try {
+            long size;
+            try {
+                size = WalletJournal.append(snapshot.file(), snapshot.key(), entry);
+            } catch (IOException ex) {
+                // Snapshot includes the change and replaces the journal
+                LOGGER.log(Level.WARNING, "Change cannot be journaled, checkpoint required", ex);
+                size = -1;
+            }
+            if (size < 0 || size > COMPACTION_THRESHOLD) {
+                var journalSize = size;
+                LOGGER.info(() -> "Journal size " + journalSize + " requires checkpoint");
+                WalletFiles.write(snapshot.file(), snapshot.key(), snapshot.records(), snapshot.format());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            var depth = queueDepth.decrementAndGet();
+            var micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            LOGGER.fine(() -> String.format("Journaled change in %d us, queue depth: %d", micros, depth));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Persisted search index stored next to the wallet file. The index is encrypted as a single block with the session
+ * key. The header holds the checksum of the wallet file and its journal the index was built for, so an index that
+ * does not match the wallet content is never used. The file is memory mapped when read, index of a wallet without
+ * password is used directly from the mapping.
+ */
+public final class SearchIndexFile {
+    private static final Logger LOGGER = Logger.getLogger(SearchIndexFile.class.getName());
+
+    private static final String SUFFIX = ".search";
+    private static final int MAGIC = 0x504D5349;
+    private static final byte VERSION = 1;
+
+    /**
+     * File header. It is also used as associated data of the index.
+     *
+     * @param checksum      content checksum of the wallet the index was built for
+     * @param keyDerivation key derivation parameters of the index
+     */
+    private record Header(byte[] checksum, KeyDerivation keyDerivation) {
+        byte[] toBytes() throws IOException {
+            var bytes = new ByteArrayOutputStream();
+            try (var out = new DataOutputStream(bytes)) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.write(checksum);
+                keyDerivation.write(out);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private SearchIndexFile() {
+    }
+
+    static Path indexFile(Path walletFile) {
+        return walletFile.resolveSibling(walletFile.getFileName().toString() + SUFFIX);
+    }
+
+    /**
+     * Returns checksum of the wallet content, i.e. the wallet file and its journal. Changes to be saved must be
+     * written before, see {@link SaveScheduler#checksum(Path)}.
+     *
+     * @param walletFile wallet file
+     * @return checksum
+     * @throws IOException if files cannot be read
+     */
+    public static byte[] checksum(Path walletFile) throws IOException {
+        var journal = WalletJournal.journalFile(walletFile);
+        return Files.exists(journal)
+                ? WalletFiles.checksum(walletFile, journal)
+                : WalletFiles.checksum(walletFile);
+    }
+
+    /**
+     * Reads the index of the wallet. Index that does not match the wallet content or cannot be decrypted is
+     * deleted.
+     *
+     * @param walletFile wallet file
+     * @param key        session key
+     * @param checksum   current checksum of the wallet content
+     * @return serialized index if it matches the wallet content
+     * @throws IOException if index file cannot be read
+     */
+    public static Optional<ByteBuffer> read(Path walletFile, SessionKey key, byte[] checksum) throws IOException {
+        var file = indexFile(walletFile);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+
+        try (var channel = FileChannel.open(file, READ)) {
+            Header header;
+            // Stream is not closed as it would close the channel, header is read without buffering
+            var in = new DataInputStream(Channels.newInputStream(channel));
+            try {
+                var magic = in.readInt();
+                var version = in.readByte();
+                if (magic != MAGIC || version != VERSION) {
+                    throw new IOException("Unknown search index format");
+                }
+                header = new Header(in.readNBytes(WalletFiles.CHECKSUM_SIZE), KeyDerivation.read(in));
+            } catch (IOException ex) {
+                return discard(file, channel, "is not valid: " + ex);
+            }
+
+            if (!Arrays.equals(header.checksum(), checksum)) {
+                return discard(file, channel, "does not match the wallet");
+            }
+
+            var position = channel.position();
+            var data = channel.map(FileChannel.MapMode.READ_ONLY, position, channel.size() - position);
+            try {
+                return Optional.of(key.cipher(header.keyDerivation()).decrypt(data, header.toBytes()));
+            } catch (IOException ex) {
+                return discard(file, channel, "cannot be decrypted: " + ex);
+            }
+        }
+    }
+
+    /**
+     * Writes the index of the wallet replacing the existing one.
+     *
+     * @param walletFile wallet file
+     * @param key        session key
+     * @param checksum   checksum of the wallet content the index was built for
+     * @param index      serialized index
+     * @throws IOException if index file cannot be written
+     */
+    public static void write(Path walletFile, SessionKey key, byte[] checksum, byte[] index) throws IOException {
+        var keyDerivation = key.keyDerivation();
+        var header = new Header(checksum, keyDerivation).toBytes();
+        var payload = key.cipher(keyDerivation).encrypt(index, header);
+        WalletFiles.writeAtomically(indexFile(walletFile), out -> {
+            out.write(header);
+            out.write(payload);
+        });
+    }
+
+    /**
+     * Deletes the index of the wallet if it exists.
+     *
+     * @param walletFile wallet file
+     * @throws IOException if index file cannot be deleted
+     */
+    public static void delete(Path walletFile) throws IOException {
+        Files.deleteIfExists(indexFile(walletFile));
+    }
+
+    private static Optional<ByteBuffer> discard(Path file, FileChannel channel, String reason) throws IOException {
+        LOGGER.warning("Search index " + file + " " + reason + ", ignored");
+        channel.close();
+        Files.delete(file);
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,173 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import javax.crypto.SecretKey;
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keys of the open wallet. Password based key derivation is slow by design, so the key is derived once for
+ * each set of derivation parameters and kept until the wallet is closed or its password is changed. The file
+ * generation parameters are either taken from the file that was read or created on first write, and then
+ * reused for all following writes, so saves only do symmetric encryption.
+ */
+public final class SessionKey implements AutoCloseable {
+    private static final int MAX_KEYS = 4;
+
+    private final KeyDerivationAlgorithm algorithm;
+    private final int iterations;
+
+    private char[] password;
+    private KeyDerivation generation;
+    private final Map<KeyDerivation, DerivedKey> keys = new LinkedHashMap<>();
+
+    /**
+     * Creates session key for the password with default key derivation parameters.
+     *
+     * @param password password, empty password means no encryption
+     */
+    public SessionKey(String password) {
+        this(password, KeyDerivationAlgorithm.DEFAULT, KeyDerivationAlgorithm.DEFAULT.defaultIterations());
+    }
+
+    /**
+     * Creates session key for the password. Key derivation is deferred until the key is used. Key derivation
+     * parameters are used for new files only, existing files keep their own.
+     *
+     * @param password   password, empty password means no encryption
+     * @param algorithm  key derivation function
+     * @param iterations iteration count
+     */
+    public SessionKey(String password, KeyDerivationAlgorithm algorithm, int iterations) {
+        if (iterations < KeyDerivationAlgorithm.MIN_ITERATIONS || iterations > KeyDerivationAlgorithm.MAX_ITERATIONS) {
+            throw new IllegalArgumentException("Invalid iteration count " + iterations);
+        }
+        this.algorithm = requireNonNull(algorithm);
+        this.iterations = iterations;
+        this.password = password.toCharArray();
+    }
+
+    /**
+     * Returns true if the wallet is not encrypted.
+     *
+     * @return true if password is empty
+     */
+    public synchronized boolean isEmpty() {
+        ensureOpen();
+        return password.length == 0;
+    }
+
+    /**
+     * Wipes password and derived keys. Records read lazily with this key cannot be decrypted after that.
+     */
+    @Override
+    public synchronized void close() {
+        if (password == null) {
+            return;
+        }
+        Arrays.fill(password, '\0');
+        password = null;
+        keys.values().forEach(DerivedKey::destroy);
+        keys.clear();
+    }
+
+    synchronized KeyDerivation keyDerivation() {
+        ensureOpen();
+        if (generation == null) {
+            generation = KeyDerivation.random(algorithm, iterations);
+        }
+        return generation;
+    }
+
+    synchronized RecordCipher cipher() {
+        return cipher(keyDerivation());
+    }
+
+    synchronized RecordCipher cipher(KeyDerivation keyDerivation) {
+        ensureOpen();
+        if (generation == null) {
+            // Parameters of the file that was read are reused for writes
+            generation = keyDerivation;
+        }
+        if (password.length == 0) {
+            return RecordCipher.NONE;
+        }
+
+        var key = keys.get(keyDerivation);
+        if (key == null) {
+            if (keys.size() >= MAX_KEYS) {
+                keys.keySet().stream()
+                        .filter(k -> !k.equals(generation))
+                        .findFirst()
+                        .map(keys::remove)
+                        .ifPresent(DerivedKey::destroy);
+            }
+            key = new DerivedKey(keyDerivation.deriveKey(password));
+            keys.put(keyDerivation, key);
+        }
+        return new RecordCipher(key);
+    }
+
+    synchronized String password() {
+        ensureOpen();
+        return new String(password);
+    }
+
+    /**
+     * Throws if the key was closed.
+     */
+    synchronized void ensureOpen() {
+        if (password == null) {
+            throw new IllegalStateException("Session key is closed");
+        }
+    }
+
+    /**
+     * AES key that can be wiped.
+     */
+    private static final class DerivedKey implements SecretKey {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] bytes;
+        private volatile boolean destroyed;
+
+        DerivedKey(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public String getAlgorithm() {
+            return "AES";
+        }
+
+        @Override
+        public String getFormat() {
+            return "RAW";
+        }
+
+        @Override
+        public byte[] getEncoded() {
+            if (destroyed) {
+                throw new IllegalStateException("Key is destroyed");
+            }
+            return bytes.clone();
+        }
+
+        @Override
+        public void destroy() {
+            destroyed = true;
+            Arrays.fill(bytes, (byte) 0);
+        }
+
+        @Override
+        public boolean isDestroyed() {
+            return destroyed;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import org.panteleyev.commons.crypto.AES;
+import org.panteleyev.pwdmanager.Serializer;
+import org.panteleyev.pwdmanager.model.Card;
+import org.panteleyev.pwdmanager.model.WalletRecord;
+
+import org.xml.sax.SAXException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Reads and writes wallet files.
+ */
+public final class WalletFiles {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PIPELINE_CAPACITY = 16;
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String CHECKSUM_ALGORITHM = "SHA-256";
+
+    static final int CHECKSUM_SIZE = 32;
+
+    @FunctionalInterface
+    interface StreamWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private WalletFiles() {
+    }
+
+    /**
+     * Writes records to the wallet file in XML format.
+     *
+     * @param file     wallet file
+     * @param password password, empty password means no encryption
+     * @param records  records
+     * @throws IOException if file cannot be written
+     */
+    public static void write(Path file, String password, List<WalletRecord> records) throws IOException {
+        write(file, password, records, WalletFormat.XML);
+    }
+
+    /**
+     * Writes records to the wallet file with a one-off key.
+     *
+     * @param file     wallet file
+     * @param password password, empty password means no encryption
+     * @param records  records
+     * @param format   file format
+     * @throws IOException if file cannot be written
+     */
+    public static void write(Path file, String password, List<WalletRecord> records, WalletFormat format)
+            throws IOException
+    {
+        try (var key = new SessionKey(password)) {
+            write(file, key, records, format);
+        }
+    }
+
+    /**
+     * Writes records to the wallet file. Records are written into a temporary file in the same directory, the
+     * temporary file is synced to disk and then renamed over the target file, so the existing file is never
+     * truncated. XML and binary records are streamed through the cipher and memory usage does not depend on the
+     * wallet size, password protected files are written as chunked containers encrypted in parallel. Indexed
+     * wallets are assembled in memory as the index precedes the card bodies.
+     *
+     * @param file    wallet file
+     * @param key     session key of the wallet
+     * @param records records
+     * @param format  file format
+     * @throws IOException if file cannot be written
+     */
+    public static void write(Path file, SessionKey key, List<WalletRecord> records, WalletFormat format)
+            throws IOException
+    {
+        writeAtomically(file, out -> {
+            if (format == WalletFormat.INDEXED) {
+                // Records are encrypted one by one
+                IndexedCodec.write(out, key, records);
+            } else if (key.isEmpty()) {
+                encode(out, records, format);
+            } else {
+                try (var cOut = ChunkedCipher.encrypt(out, key)) {
+                    encode(cOut, records, format);
+                }
+            }
+        });
+        // Journal changes are now part of the file
+        WalletJournal.delete(file);
+    }
+
+    /**
+     * Reads records from the wallet file. Chunked containers are decrypted in parallel ahead of the parser.
+     * Legacy encrypted files are decrypted on a separate thread and piped into the parser through a bounded
+     * buffer. In both cases decryption and parsing overlap and memory usage does not depend on the file size.
+     * Indexed wallets are read into memory as a whole, card bodies are decrypted from it on access.
+     * File format is detected by its content. Changes from the journal, if any, are applied to the records read
+     * from the file.
+     *
+     * @param file wallet file
+     * @param key  session key of the wallet, records may be decrypted lazily with this key
+     * @return records
+     * @throws IOException  if file cannot be read or decrypted
+     * @throws SAXException if file content is not a valid wallet
+     */
+    public static List<WalletRecord> read(Path file, SessionKey key) throws IOException, SAXException {
+        List<WalletRecord> records;
+        if (hasMagic(file, IndexedCodec.MAGIC)) {
+            records = IndexedCodec.read(Files.readAllBytes(file), key);
+        } else {
+            // Content of authenticated containers was written by this application
+            var trusted = hasMagic(file, ChunkedCipher.MAGIC);
+            try (var in = new BufferedInputStream(openInputStream(file, key), BUFFER_SIZE)) {
+                records = hasMagic(in, BinaryCodec.MAGIC)
+                        ? BinaryCodec.read(in)
+                        : Serializer.deserialize(in, trusted);
+            }
+        }
+        return WalletJournal.replay(file, key, records);
+    }
+
+    /**
+     * Checks the session key against the key check block of the wallet file. Only the file header is read, so
+     * a wrong password is rejected after a single key derivation. The derived key stays cached in the session
+     * key and is reused when the file is read.
+     *
+     * @param file wallet file
+     * @param key  session key
+     * @return false if the key is wrong, true if it is correct or the file has no key check block
+     * @throws IOException if file cannot be read
+     */
+    public static boolean checkKey(Path file, SessionKey key) throws IOException {
+        try (var in = new BufferedInputStream(Files.newInputStream(file))) {
+            if (hasMagic(in, ChunkedCipher.MAGIC)) {
+                return ChunkedCipher.checkKey(in, key);
+            } else if (hasMagic(in, IndexedCodec.MAGIC)) {
+                return IndexedCodec.checkKey(in, key);
+            } else {
+                // Legacy files are verified only when decrypted
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reads records from the wallet file with a one-off key. All records are decrypted before the key is wiped.
+     *
+     * @param file     wallet file
+     * @param password password, empty password means no encryption
+     * @return records
+     * @throws IOException  if file cannot be read or decrypted
+     * @throws SAXException if file content is not a valid wallet
+     */
+    public static List<WalletRecord> read(Path file, String password) throws IOException, SAXException {
+        try (var key = new SessionKey(password)) {
+            return read(file, key).stream().map(WalletFiles::detach).toList();
+        }
+    }
+
+    /**
+     * Returns record that does not depend on the session key it was read with. Card fields that have not been
+     * decrypted yet are decrypted.
+     *
+     * @param record record
+     * @return detached record
+     */
+    public static WalletRecord detach(WalletRecord record) {
+        return switch (record) {
+            case Card card when IndexedCodec.isLazy(card.fields()) -> new Card(card.uuid(), card.modified(),
+                    card.picture(), card.name(), List.copyOf(card.fields()), card.note(), card.favorite(),
+                    card.active());
+            default -> record;
+        };
+    }
+
+    private static void encode(OutputStream out, List<WalletRecord> records, WalletFormat format)
+            throws IOException
+    {
+        switch (format) {
+            case XML -> Serializer.serialize(out, records);
+            case BINARY -> BinaryCodec.write(out, records);
+            case INDEXED -> throw new IllegalArgumentException("Indexed format has its own encryption");
+        }
+    }
+
+    private static boolean hasMagic(Path file, byte[] magic) throws IOException {
+        try (var in = Files.newInputStream(file)) {
+            return Arrays.equals(in.readNBytes(magic.length), magic);
+        }
+    }
+
+    private static boolean hasMagic(InputStream in, byte[] magic) throws IOException {
+        in.mark(magic.length);
+        try {
+            return Arrays.equals(in.readNBytes(magic.length), magic);
+        } finally {
+            in.reset();
+        }
+    }
+
+    /**
+     * Returns checksum of the files content as if they were concatenated.
+     *
+     * @param files files
+     * @return checksum
+     * @throws IOException if a file cannot be read
+     */
+    static byte[] checksum(Path... files) throws IOException {
+        try {
+            var digest = MessageDigest.getInstance(CHECKSUM_ALGORITHM);
+            for (var file : files) {
+                try (var in = new DigestInputStream(Files.newInputStream(file), digest)) {
+                    in.transferTo(OutputStream.nullOutputStream());
+                }
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static InputStream openInputStream(Path file, SessionKey key) throws IOException {
+        var in = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+        if (hasMagic(in, ChunkedCipher.MAGIC)) {
+            try {
+                return ChunkedCipher.decrypt(in, key);
+            } catch (IOException | RuntimeException ex) {
+                in.close();
+                throw ex;
+            }
+        }
+
+        if (key.isEmpty()) {
+            return in;
+        }
+
+        // Files written before chunked containers
+        var password = key.password();
+        return new PipelineInputStream(out -> {
+            try (in; var cin = AES.aes256().getInputStream(in, password)) {
+                cin.transferTo(out);
+            }
+        }, BUFFER_SIZE, PIPELINE_CAPACITY);
+    }
+
+    /**
+     * Writes file through a temporary file that replaces the target when it is completely written.
+     *
+     * @param file   target file
+     * @param writer content writer
+     * @throws IOException if file cannot be written
+     */
+    static void writeAtomically(Path file, StreamWriter writer) throws IOException {
+        var directory = file.toAbsolutePath().getParent();
+        var temp = Files.createTempFile(directory, file.getFileName().toString(), TEMP_SUFFIX);
+        try {
+            try (var channel = FileChannel.open(temp, WRITE)) {
+                var out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+                        // Channel must stay open until it is forced to disk
+                        flush();
+                    }
+                };
+                writer.write(out);
+                out.flush();
+                channel.force(true);
+            }
+            move(temp, file);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+        syncDirectory(directory);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, ATOMIC_MOVE, REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, REPLACE_EXISTING);
+        }
+    }
+
+    private static void syncDirectory(Path directory) {
+        // Makes rename durable on POSIX systems, not supported on Windows
+        try (var channel = FileChannel.open(directory, READ)) {
+            channel.force(true);
+        } catch (IOException _) {
+            // Best effort
+        }
+    }
+}
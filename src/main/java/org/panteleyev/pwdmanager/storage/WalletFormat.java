@@ -0,0 +1,21 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+/**
+ * Wallet file formats. Format of the existing file is detected on read, this option defines the format of
+ * the written files.
+ */
+public enum WalletFormat {
+    XML,
+    BINARY,
+    INDEXED;
+
+    public static WalletFormat of(String value) {
+        try {
+            return WalletFormat.valueOf(value);
+        } catch (Exception ex) {
+            return XML;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import org.panteleyev.pwdmanager.Serializer;
+import org.panteleyev.pwdmanager.model.WalletRecord;
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Append-only journal of record changes stored next to the wallet file. Each entry is encrypted separately
+ * with the session key and prefixed by its length. The journal header holds the checksum of the wallet file it
+ * was started for, so a journal left behind by an interrupted checkpoint is never replayed over a newer wallet
+ * file.
+ */
+public final class WalletJournal {
+    private static final Logger LOGGER = Logger.getLogger(WalletJournal.class.getName());
+
+    private static final String SUFFIX = ".journal";
+    private static final int MAGIC = 0x504D574A;
+    private static final byte VERSION = 1;
+    private static final int MAX_ENTRY_SIZE = 64 * 1024 * 1024;
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+
+    /**
+     * Journal entry.
+     */
+    public sealed interface Entry {
+        void applyTo(Map<UUID, WalletRecord> records);
+    }
+
+    /**
+     * Adds or replaces a record.
+     *
+     * @param record record
+     */
+    public record Put(WalletRecord record) implements Entry {
+        public Put {
+            requireNonNull(record);
+        }
+
+        @Override
+        public void applyTo(Map<UUID, WalletRecord> records) {
+            records.put(record.uuid(), record);
+        }
+    }
+
+    /**
+     * Removes a record.
+     *
+     * @param uuid record uuid
+     */
+    public record Remove(UUID uuid) implements Entry {
+        public Remove {
+            requireNonNull(uuid);
+        }
+
+        @Override
+        public void applyTo(Map<UUID, WalletRecord> records) {
+            records.remove(uuid);
+        }
+    }
+
+    /**
+     * Journal header. It is also used as associated data of the entries.
+     *
+     * @param checksum      checksum of the wallet file the journal was started for
+     * @param keyDerivation key derivation parameters of the entries
+     */
+    private record Header(byte[] checksum, KeyDerivation keyDerivation) {
+        byte[] toBytes() throws IOException {
+            var bytes = new ByteArrayOutputStream();
+            try (var out = new DataOutputStream(bytes)) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.write(checksum);
+                keyDerivation.write(out);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private WalletJournal() {
+    }
+
+    static Path journalFile(Path walletFile) {
+        return walletFile.resolveSibling(walletFile.getFileName().toString() + SUFFIX);
+    }
+
+    /**
+     * Appends entry to the journal of the wallet file. Journal is created if necessary. Entries are encrypted
+     * with the key of the journal which is the session key unless the journal was started in another session.
+     * If the entry cannot be written the journal is truncated to its previous size, so a partially written entry
+     * does not hide the entries appended after it.
+     *
+     * @param walletFile wallet file
+     * @param key        session key
+     * @param entry      entry
+     * @return journal size after append or -1 if journal header is not valid and a checkpoint is required
+     * @throws IOException if journal cannot be written
+     */
+    static long append(Path walletFile, SessionKey key, Entry entry) throws IOException {
+        try (var channel = FileChannel.open(journalFile(walletFile), CREATE, READ, WRITE)) {
+            return append(channel, walletFile, key, entry);
+        }
+    }
+
+    static long append(FileChannel channel, Path walletFile, SessionKey key, Entry entry) throws IOException {
+        var size = channel.size();
+        Header header;
+        if (size > 0) {
+            channel.position(0);
+            // Stream is not closed as it would close the channel
+            header = readHeader(new DataInputStream(Channels.newInputStream(channel)));
+            if (header == null) {
+                LOGGER.warning("Journal of " + walletFile + " has no valid header, ignored");
+                return -1;
+            }
+        } else {
+            header = new Header(WalletFiles.checksum(walletFile), key.keyDerivation());
+        }
+
+        try {
+            if (size == 0) {
+                writeFully(channel, ByteBuffer.wrap(header.toBytes()));
+            }
+            var payload = key.cipher(header.keyDerivation()).encrypt(encode(entry), header.toBytes());
+            channel.position(channel.size());
+            writeFully(channel, ByteBuffer.allocate(Integer.BYTES + payload.length)
+                    .putInt(payload.length)
+                    .put(payload)
+                    .flip());
+            channel.force(false);
+            return channel.size();
+        } catch (IOException ex) {
+            try {
+                channel.truncate(size);
+                channel.force(false);
+            } catch (IOException truncateEx) {
+                ex.addSuppressed(truncateEx);
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Applies journal entries to the records read from the wallet file. Incomplete entry at the end of the
+     * journal, i.e. the one interrupted by a crash, is discarded. Journal that does not belong to the wallet
+     * file or has no valid header is deleted.
+     *
+     * @param walletFile wallet file
+     * @param key        session key
+     * @param checkpoint records read from the wallet file
+     * @return records with journal applied
+     * @throws IOException if journal cannot be read
+     */
+    static List<WalletRecord> replay(Path walletFile, SessionKey key, List<WalletRecord> checkpoint)
+            throws IOException
+    {
+        var journal = journalFile(walletFile);
+        if (!Files.exists(journal)) {
+            return checkpoint;
+        }
+
+        try (var in = new DataInputStream(Files.newInputStream(journal))) {
+            var header = readHeader(in);
+            if (header == null) {
+                LOGGER.warning("Journal " + journal + " has no valid header, ignored");
+                in.close();
+                Files.delete(journal);
+                return checkpoint;
+            }
+
+            if (!Arrays.equals(header.checksum(), WalletFiles.checksum(walletFile))) {
+                // Left by a checkpoint that was interrupted after the rename
+                LOGGER.warning("Journal " + journal + " does not belong to the wallet file, ignored");
+                in.close();
+                Files.delete(journal);
+                return checkpoint;
+            }
+
+            var associatedData = header.toBytes();
+            var cipher = key.cipher(header.keyDerivation());
+            long validSize = associatedData.length;
+
+            var records = new LinkedHashMap<UUID, WalletRecord>();
+            for (var r : checkpoint) {
+                records.put(r.uuid(), r);
+            }
+
+            var count = 0;
+            while (true) {
+                Entry entry;
+                try {
+                    var length = in.readInt();
+                    if (length <= 0 || length > MAX_ENTRY_SIZE) {
+                        throw new IOException("Invalid entry length " + length);
+                    }
+                    var payload = new byte[length];
+                    in.readFully(payload);
+                    entry = decode(cipher.decrypt(payload, 0, payload.length, associatedData));
+                    validSize += Integer.BYTES + length;
+                } catch (EOFException _) {
+                    break;
+                } catch (IOException | SAXException | RuntimeException ex) {
+                    LOGGER.warning("Damaged journal entry at " + validSize + ": " + ex);
+                    break;
+                }
+                entry.applyTo(records);
+                count++;
+            }
+
+            truncate(journal, validSize);
+            var replayed = count;
+            LOGGER.info(() -> "Replayed " + replayed + " journal entries");
+            return new ArrayList<>(records.values());
+        }
+    }
+
+    static void delete(Path walletFile) throws IOException {
+        Files.deleteIfExists(journalFile(walletFile));
+    }
+
+    private static void truncate(Path journal, long size) throws IOException {
+        try (var channel = FileChannel.open(journal, WRITE)) {
+            if (channel.size() > size) {
+                channel.truncate(size);
+                channel.force(false);
+            }
+        }
+    }
+
+    private static byte[] encode(Entry entry) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            switch (entry) {
+                case Put put -> {
+                    out.writeByte(OP_PUT);
+                    Serializer.serialize(out, List.of(put.record()));
+                }
+                case Remove remove -> {
+                    out.writeByte(OP_REMOVE);
+                    out.writeLong(remove.uuid().getMostSignificantBits());
+                    out.writeLong(remove.uuid().getLeastSignificantBits());
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Entry decode(byte[] bytes) throws IOException, SAXException {
+        try (var in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            return switch (in.readByte()) {
+                // Entries are authenticated, so they were written by this application
+                case OP_PUT -> new Put(Serializer.deserialize(in, true).getFirst());
+                case OP_REMOVE -> new Remove(new UUID(in.readLong(), in.readLong()));
+                default -> throw new IOException("Unknown journal operation");
+            };
+        }
+    }
+
+    /**
+     * Reads the journal header. Journal with unknown format or torn header is not valid and is discarded, as all
+     * journals are written by this application and a torn header means no entry was written.
+     *
+     * @param in input stream positioned at the journal start
+     * @return header or null if header is not valid
+     */
+    private static Header readHeader(DataInputStream in) {
+        try {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                return null;
+            }
+            return new Header(in.readNBytes(WalletFiles.CHECKSUM_SIZE), KeyDerivation.read(in));
+        } catch (IOException _) {
+            return null;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import java.io.IOException;
+import java.io.Serial;
+
+/**
+ * Thrown when the key check block of the file cannot be verified with the session key.
+ */
+public final class WrongPasswordException extends IOException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public WrongPasswordException() {
+        super("Wrong password");
+    }
+}
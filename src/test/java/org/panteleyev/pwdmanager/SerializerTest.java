@@ -1,5 +1,5 @@
 /*
- Copyright © 2017-2024 Petr Panteleyev <petr@panteleyev.org>
+ Copyright © 2017-2026 Petr Panteleyev <petr@panteleyev.org>
  SPDX-License-Identifier: BSD-2-Clause
  */
 package org.panteleyev.pwdmanager;
@@ -12,14 +12,21 @@ import org.panteleyev.pwdmanager.model.FieldType;
 import org.panteleyev.pwdmanager.model.Note;
 import org.panteleyev.pwdmanager.model.Picture;
 import org.panteleyev.pwdmanager.model.WalletRecord;
+import org.xml.sax.SAXException;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.panteleyev.TestUtil.randomString;
 
 public class SerializerTest {
@@ -79,4 +86,58 @@ public class SerializerTest {
         var list = Serializer.deserialize(new ByteArrayInputStream(bytes));
         assertEquals(RECORDS, list);
     }
+
+    @Test
+    public void testConcurrentDeserialize() throws Exception {
+        var out = new ByteArrayOutputStream();
+        Serializer.serialize(out, RECORDS);
+        var bytes = out.toByteArray();
+
+        Callable<List<WalletRecord>> task = () -> Serializer.deserialize(new ByteArrayInputStream(bytes));
+        try (var executor = Executors.newFixedThreadPool(4)) {
+            var futures = executor.invokeAll(Collections.nCopies(8, task));
+            for (var f : futures) {
+                assertEquals(RECORDS, f.get());
+            }
+        }
+    }
+
+    @Test
+    public void testNoteTextWithoutNoteElement() throws Exception {
+        var uuid = UUID.randomUUID();
+        var xml = """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <wallet version="1"><records>\
+                <record uuid="%s" name="Note" modified="100" picture="NOTE" favorite="true" active="false" \
+                recordClass="NOTE">Note text</record>\
+                </records></wallet>""".formatted(uuid);
+
+        var list = Serializer.deserialize(new ByteArrayInputStream(xml.getBytes(UTF_8)));
+        assertEquals(1, list.size());
+        var note = assertInstanceOf(Note.class, list.getFirst());
+        assertEquals(new Note(uuid, "Note", "Note text", true, false, 100), note);
+    }
+
+    @Test
+    public void testValidationPolicy() throws Exception {
+        // Missing version attribute violates the schema but does not prevent parsing
+        var xml = """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <wallet><records>\
+                <record uuid="%s" name="Note" modified="100" picture="NOTE" favorite="true" active="true" \
+                recordClass="NOTE"><note>Note text</note></record>\
+                </records></wallet>""".formatted(UUID.randomUUID()).getBytes(UTF_8);
+
+        try {
+            Serializer.setValidationPolicy(ValidationPolicy.TRUSTED);
+            assertEquals(1, Serializer.deserialize(new ByteArrayInputStream(xml), true).size());
+            assertThrows(SAXException.class, () -> Serializer.deserialize(new ByteArrayInputStream(xml), false));
+            assertThrows(SAXException.class, () -> Serializer.deserialize(new ByteArrayInputStream(xml)));
+
+            Serializer.setValidationPolicy(ValidationPolicy.STRICT);
+            assertThrows(SAXException.class, () -> Serializer.deserialize(new ByteArrayInputStream(xml), true));
+        } finally {
+            Serializer.setValidationPolicy(ValidationPolicy.TRUSTED);
+        }
+    }
 }
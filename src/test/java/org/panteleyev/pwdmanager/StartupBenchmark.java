@@ -0,0 +1,142 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.panteleyev.pwdmanager.model.Card;
+import org.panteleyev.pwdmanager.model.Field;
+import org.panteleyev.pwdmanager.model.FieldType;
+import org.panteleyev.pwdmanager.model.Note;
+import org.panteleyev.pwdmanager.model.Picture;
+import org.panteleyev.pwdmanager.model.WalletRecord;
+import org.panteleyev.pwdmanager.storage.KeyDerivationAlgorithm;
+import org.panteleyev.pwdmanager.storage.SessionKey;
+import org.panteleyev.pwdmanager.storage.WalletFiles;
+import org.panteleyev.pwdmanager.storage.WalletFormat;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.panteleyev.TestUtil.randomString;
+import static org.panteleyev.pwdmanager.TemplateEngine.templateEngine;
+
+/**
+ * Headless startup benchmark. Runs the non-UI startup phases against generated wallets of each format and
+ * reports percentiles. Disabled by default, run with:
+ * <pre>
+ * mvn test -Dtest=StartupBenchmark -Dbenchmark=true [-Dbenchmark.iterations=20]
+ * </pre>
+ * The first iteration of each wallet runs in a cold JVM state and is reported separately.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class StartupBenchmark {
+    private static final int[] WALLET_SIZES = {100, 1_000, 10_000};
+    private static final String PASSWORD = "benchmark";
+
+    private static final Map<String, Object> CSS_MODEL = Map.of(
+            "controlsFontFamily", "System",
+            "controlsFontSize", 12,
+            "dialogFontFamily", "System",
+            "dialogFontSize", 12,
+            "fieldNameColor", "#0000ff"
+    );
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void benchmark() throws Exception {
+        var iterations = Integer.getInteger("benchmark.iterations", 20);
+        var algorithm = KeyDerivationAlgorithm.DEFAULT;
+
+        for (var format : WalletFormat.values()) {
+            for (var size : WALLET_SIZES) {
+                var records = generate(size);
+                var file = tempDir.resolve(format + "-" + size + ".pwd");
+                try (var key = new SessionKey(PASSWORD, algorithm, algorithm.defaultIterations())) {
+                    WalletFiles.write(file, key, records, format);
+                }
+
+                var timings = new LinkedHashMap<String, long[]>();
+                for (var i = 0; i < iterations; i++) {
+                    var start = System.nanoTime();
+                    for (var template : TemplateEngine.Template.values()) {
+                        templateEngine().process(template, CSS_MODEL);
+                    }
+                    var css = System.nanoTime();
+
+                    try (var key = new SessionKey(PASSWORD)) {
+                        WalletFiles.checkKey(file, key);
+                        var derived = System.nanoTime();
+                        var read = WalletFiles.read(file, key);
+                        var parsed = System.nanoTime();
+                        assertEquals(size, read.size());
+
+                        record(timings, "CSS generation", i, iterations, css - start);
+                        record(timings, "Key derivation", i, iterations, derived - css);
+                        record(timings, "Wallet read", i, iterations, parsed - derived);
+                        record(timings, "Total", i, iterations, parsed - start);
+                    }
+                }
+                report(format + ", " + size + " records", timings);
+            }
+        }
+    }
+
+    private static void record(Map<String, long[]> timings, String phase, int iteration, int iterations,
+            long nanos)
+    {
+        timings.computeIfAbsent(phase, _ -> new long[iterations])[iteration] = nanos;
+    }
+
+    private static void report(String title, Map<String, long[]> timings) {
+        System.out.println(title);
+        System.out.printf("    %-16s %8s %8s %8s %8s %8s%n", "Phase, ms", "cold", "p50", "p90", "p99", "max");
+        timings.forEach((phase, values) -> {
+            var warm = values.length > 1 ? Arrays.copyOfRange(values, 1, values.length) : values;
+            Arrays.sort(warm);
+            System.out.printf("    %-16s %8.1f %8.1f %8.1f %8.1f %8.1f%n", phase,
+                    values[0] / 1e6,
+                    percentile(warm, 50) / 1e6,
+                    percentile(warm, 90) / 1e6,
+                    percentile(warm, 99) / 1e6,
+                    warm[warm.length - 1] / 1e6);
+        });
+    }
+
+    /**
+     * Returns nearest-rank percentile.
+     *
+     * @param sorted     sorted values
+     * @param percentile percentile
+     * @return value
+     */
+    static long percentile(long[] sorted, int percentile) {
+        var rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.clamp(rank - 1, 0, sorted.length - 1)];
+    }
+
+    private static List<WalletRecord> generate(int size) {
+        var pictures = Picture.values();
+        var records = new ArrayList<WalletRecord>(size);
+        for (var i = 0; i < size; i++) {
+            if (i % 5 == 0) {
+                records.add(new Note(randomString()));
+            } else {
+                records.add(new Card(randomString(), pictures[i % pictures.length], List.of(
+                        new Field(FieldType.STRING, "Login", randomString()),
+                        new Field(FieldType.HIDDEN, "Password", randomString()),
+                        new Field(FieldType.LINK, "URL", "https://" + randomString() + ".com")
+                )));
+            }
+        }
+        return records;
+    }
+}
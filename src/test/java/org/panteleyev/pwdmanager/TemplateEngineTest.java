@@ -0,0 +1,41 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+public class TemplateEngineTest {
+    private static Stream<Arguments> testCompileArguments() {
+        return Stream.of(
+                arguments("", List.of()),
+                arguments("text", List.of(new TemplateEngine.Literal("text"))),
+                arguments("${a}", List.of(new TemplateEngine.Placeholder("a"))),
+                arguments("size: ${a}px; color: ${b};", List.of(
+                        new TemplateEngine.Literal("size: "),
+                        new TemplateEngine.Placeholder("a"),
+                        new TemplateEngine.Literal("px; color: "),
+                        new TemplateEngine.Placeholder("b"),
+                        new TemplateEngine.Literal(";")
+                )),
+                arguments("${a}${b}", List.of(
+                        new TemplateEngine.Placeholder("a"),
+                        new TemplateEngine.Placeholder("b")
+                )),
+                arguments("a ${b", List.of(new TemplateEngine.Literal("a ${b")))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testCompileArguments")
+    public void testCompile(String text, List<TemplateEngine.Segment> expected) {
+        assertEquals(expected, TemplateEngine.compile(text));
+    }
+}
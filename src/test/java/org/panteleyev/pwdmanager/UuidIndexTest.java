@@ -0,0 +1,138 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+import org.panteleyev.pwdmanager.model.Note;
+import org.panteleyev.pwdmanager.model.WalletRecord;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class UuidIndexTest {
+    private final List<WalletRecord> records = new ArrayList<>();
+    private final UuidIndex index = new UuidIndex(records);
+
+    @Test
+    public void testSameAsScan() {
+        var random = new Random(1);
+        var removed = new ArrayList<WalletRecord>();
+        for (int i = 0; i < 100; i++) {
+            records.add(new Note("note " + i));
+        }
+
+        for (int i = 0; i < 2_000; i++) {
+            var position = random.nextInt(records.size() + 1);
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    records.add(position, new Note("note " + i));
+                    index.replaced(position, List.of(), 1);
+                }
+                case 1 -> {
+                    if (position < records.size()) {
+                        var record = records.remove(position);
+                        removed.add(record);
+                        index.replaced(position, List.of(record), 0);
+                    }
+                }
+                case 2 -> {
+                    if (position < records.size()) {
+                        var old = records.get(position);
+                        records.set(position, old.setFavorite(!old.favorite()));
+                        index.replaced(position, List.of(old), 1);
+                    }
+                }
+                default -> {
+                    // Several changes between lookups
+                    var from = records.size();
+                    records.add(new Note("note " + i));
+                    records.add(new Note("note " + i));
+                    index.replaced(from, List.of(), 2);
+                }
+            }
+
+            if (i % 3 == 0) {
+                var record = records.get(random.nextInt(records.size()));
+                assertEquals(records.indexOf(record), index.indexOf(record.uuid()));
+                assertEquals(Optional.of(record), index.get(record.uuid()));
+            }
+        }
+
+        for (var record : records) {
+            assertEquals(records.indexOf(record), index.indexOf(record.uuid()));
+        }
+        for (var record : removed) {
+            assertEquals(-1, index.indexOf(record.uuid()));
+        }
+        assertEquals(Optional.empty(), index.get(UUID.randomUUID()));
+    }
+
+    @Test
+    public void testPermutation() {
+        for (int i = 0; i < 10; i++) {
+            records.add(new Note("note " + i));
+        }
+        index.replaced(0, List.of(), records.size());
+        var first = records.getFirst();
+        assertEquals(0, index.indexOf(first.uuid()));
+
+        records.sort(Comparator.comparing(WalletRecord::name).reversed());
+        index.permuted(0);
+        assertEquals(records.size() - 1, index.indexOf(first.uuid()));
+    }
+
+    @Test
+    public void testChangeNotReportedYet() {
+        for (int i = 0; i < 10; i++) {
+            records.add(new Note("note " + i));
+        }
+        var first = records.getFirst();
+        var second = records.get(1);
+        assertEquals(0, index.indexOf(first.uuid()));
+        assertEquals(1, index.indexOf(second.uuid()));
+
+        records.removeFirst();
+        assertEquals(0, index.indexOf(second.uuid()));
+        assertEquals(-1, index.indexOf(first.uuid()));
+
+        index.replaced(0, List.of(first), 0);
+        assertEquals(0, index.indexOf(second.uuid()));
+        assertEquals(-1, index.indexOf(first.uuid()));
+    }
+
+    @Test
+    public void testObservedList() {
+        var list = FXCollections.<WalletRecord>observableArrayList();
+        var observed = UuidIndex.observe(list);
+        var positions = new ArrayList<Integer>();
+        list.addListener((ListChangeListener<WalletRecord>) change -> {
+            while (change.next()) {
+                for (var record : change.getList()) {
+                    positions.add(observed.indexOf(record.uuid()));
+                }
+            }
+        });
+
+        for (int i = 0; i < 5; i++) {
+            list.add(new Note("note " + i));
+        }
+        list.removeFirst();
+        list.sort(Comparator.comparing(WalletRecord::name).reversed());
+
+        var expected = new ArrayList<Integer>();
+        for (int size : new int[]{1, 2, 3, 4, 5, 4, 4}) {
+            for (int i = 0; i < size; i++) {
+                expected.add(i);
+            }
+        }
+        assertEquals(expected, positions);
+    }
+}
@@ -0,0 +1,61 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.imprt;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.panteleyev.pwdmanager.model.Note;
+import org.panteleyev.pwdmanager.model.WalletRecord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.panteleyev.TestUtil.randomString;
+
+/**
+ * Import calculation benchmark. Merges two generated wallets of growing size, half of the imported records
+ * are newer versions of the existing ones. Time per record must stay flat as the size grows. Disabled by
+ * default, run with:
+ * <pre>
+ * mvn test -Dtest=ImportBenchmark -Dbenchmark=true [-Dbenchmark.iterations=20]
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ImportBenchmark {
+    private static final int[] SIZES = {12_500, 25_000, 50_000, 100_000, 200_000};
+
+    @Test
+    public void benchmark() {
+        var iterations = Integer.getInteger("benchmark.iterations", 20);
+
+        System.out.printf("%-10s %-10s %10s %10s %12s%n", "Records", "Mode", "p50, ms", "max, ms", "ns/record");
+        for (var size : SIZES) {
+            var existing = new ArrayList<WalletRecord>(size);
+            var toImport = new ArrayList<WalletRecord>(size);
+            for (int i = 0; i < size; i++) {
+                var note = new Note(UUID.randomUUID(), randomString(), "", false, true, i);
+                existing.add(note);
+                toImport.add(i % 2 == 0
+                        ? new Note(note.uuid(), note.name(), "", false, true, i + 1)
+                        : new Note(randomString()));
+            }
+
+            for (var parallel : List.of(false, true)) {
+                var timings = new long[iterations];
+                for (int i = 0; i < iterations; i++) {
+                    var start = System.nanoTime();
+                    var result = ImportUtil.calculateImport(existing, toImport, parallel);
+                    timings[i] = System.nanoTime() - start;
+                    assertEquals(size, result.size());
+                }
+                Arrays.sort(timings);
+                var median = timings[iterations / 2];
+                System.out.printf("%-10d %-10s %10.1f %10.1f %12.1f%n", size, parallel ? "parallel" : "sequential",
+                        median / 1e6, timings[iterations - 1] / 1e6, (double) median / size);
+            }
+        }
+    }
+}
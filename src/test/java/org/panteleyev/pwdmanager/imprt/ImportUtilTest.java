@@ -1,9 +1,10 @@
 /*
- Copyright © 2021-2024 Petr Panteleyev <petr@panteleyev.org>
+ Copyright © 2021-2026 Petr Panteleyev <petr@panteleyev.org>
  SPDX-License-Identifier: BSD-2-Clause
  */
 package org.panteleyev.pwdmanager.imprt;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -12,7 +13,10 @@ import org.panteleyev.pwdmanager.model.ImportAction;
 import org.panteleyev.pwdmanager.model.ImportRecord;
 import org.panteleyev.pwdmanager.model.Picture;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.IntStream;
 
@@ -104,5 +108,30 @@ public class ImportUtilTest {
     public void testCalculateImport(List<Card> cards, List<Card> toImport, List<ImportRecord> expected) {
         var actual = ImportUtil.calculateImport(cards, toImport);
         assertEquals(expected, actual);
+        assertEquals(expected, ImportUtil.calculateImport(cards, toImport, true));
+    }
+
+    @Test
+    public void testParallelSameAsSequential() {
+        var random = new Random(1);
+        var existing = new ArrayList<Card>();
+        var toImport = new ArrayList<Card>();
+        for (int i = 0; i < 4 * ImportUtil.PARALLEL_THRESHOLD; i++) {
+            var card = new Card(UUID.randomUUID(), random.nextInt(10), Picture.AIRPLANE, randomString(),
+                    emptyList(), "", false, random.nextBoolean());
+            if (random.nextBoolean()) {
+                existing.add(card);
+            }
+            if (random.nextBoolean()) {
+                toImport.add(new Card(card.uuid(), random.nextInt(10), card.picture(), card.name(), emptyList(), "",
+                        false, random.nextBoolean()));
+            }
+        }
+
+        var expected = ImportUtil.calculateImport(existing, toImport);
+        assertEquals(expected, ImportUtil.calculateImport(existing, toImport, true));
+        // Changes follow the order of records to import
+        var order = expected.stream().map(ImportRecord::cardToImport).toList();
+        assertEquals(toImport.stream().filter(Set.copyOf(order)::contains).toList(), order);
     }
 }
@@ -0,0 +1,54 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.search;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+public class FuzzyMatcherTest {
+    private static List<Arguments> testPrefixDistanceArguments() {
+        return List.of(
+                arguments("amazon", "amazon", 0),
+                arguments("amazon", "amazon prime", 0),
+                arguments("amazn", "amazon", 1),
+                arguments("amzaon", "amazon", 2),
+                arguments("amazon", "amazom", 1),
+                arguments("amazon", "amaz", 2),
+                arguments("google", "amazon", 3)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testPrefixDistanceArguments")
+    public void testPrefixDistance(String query, String text, int expected) {
+        assertEquals(expected, FuzzyMatcher.prefixDistance(query, text, 0, 2));
+    }
+
+    private static List<Arguments> testScoreArguments() {
+        return List.of(
+                arguments(new String[]{"amazon"}, "ama", FuzzyMatcher.NAME_PREFIX),
+                arguments(new String[]{"my amazon"}, "ama", FuzzyMatcher.NAME_WORD_PREFIX),
+                arguments(new String[]{"myamazon"}, "ama", FuzzyMatcher.NAME_SUBSTRING),
+                arguments(new String[]{"shop", "amazon"}, "ama", FuzzyMatcher.TEXT_SUBSTRING),
+                arguments(new String[]{"my amazom"}, "amazon",
+                        FuzzyMatcher.NAME_FUZZY - FuzzyMatcher.DISTANCE_PENALTY),
+                arguments(new String[]{"shop", "login", "amzaon orders list"}, "amazon orders",
+                        FuzzyMatcher.TEXT_FUZZY - 2 * FuzzyMatcher.DISTANCE_PENALTY),
+                // Too short for typos
+                arguments(new String[]{"amx"}, "amz", FuzzyMatcher.NO_MATCH),
+                arguments(new String[]{"bank"}, "amazon", FuzzyMatcher.NO_MATCH)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testScoreArguments")
+    public void testScore(String[] texts, String query, int expected) {
+        assertEquals(expected, FuzzyMatcher.score(texts, query));
+    }
+}
@@ -0,0 +1,83 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+public class NoteIndexTest {
+    private static final String TEXT = """
+            Recovery codes: 1234-5678, 9012-3456
+            Password hint: see the runbook.
+            Run the backup, then recovery.""";
+    private static final int LAST_RECOVERY = TEXT.lastIndexOf("recovery");
+
+    private static List<Arguments> testFindArguments() {
+        return List.of(
+                arguments("recovery", List.of(new NoteIndex.Match(0, 8),
+                        new NoteIndex.Match(LAST_RECOVERY, LAST_RECOVERY + 8))),
+                arguments("RECOV", List.of(new NoteIndex.Match(0, 5),
+                        new NoteIndex.Match(LAST_RECOVERY, LAST_RECOVERY + 5))),
+                arguments("run", List.of(new NoteIndex.Match(60, 63), new NoteIndex.Match(69, 72))),
+                arguments("runbook.", List.of(new NoteIndex.Match(60, 68))),
+                arguments("recovery codes: 1234", List.of(new NoteIndex.Match(0, 20))),
+                arguments("5678", List.of(new NoteIndex.Match(21, 25))),
+                // Text inside words is found when there are no matches at word starts
+                arguments("covery", List.of(new NoteIndex.Match(2, 8),
+                        new NoteIndex.Match(LAST_RECOVERY + 2, LAST_RECOVERY + 8))),
+                arguments("234", List.of(new NoteIndex.Match(17, 20))),
+                arguments(": 1234", List.of(new NoteIndex.Match(14, 20))),
+                arguments("un", List.of(new NoteIndex.Match(61, 63), new NoteIndex.Match(70, 72))),
+                // Words with typos are found when the text is not found at all
+                arguments("recovxry", List.of(new NoteIndex.Match(0, 8),
+                        new NoteIndex.Match(LAST_RECOVERY, LAST_RECOVERY + 8))),
+                arguments("runbok", List.of(new NoteIndex.Match(60, 67))),
+                arguments("recov codes", List.of()),
+                arguments("xyz", List.of()),
+                arguments("", List.of())
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testFindArguments")
+    public void testFind(String query, List<NoteIndex.Match> expected) {
+        assertEquals(expected, new NoteIndex(TEXT).find(query));
+    }
+
+    @Test
+    public void testFindMerged() {
+        var index = new NoteIndex(TEXT);
+        assertEquals(List.of(new NoteIndex.Match(0, 15), new NoteIndex.Match(LAST_RECOVERY, LAST_RECOVERY + 8)),
+                index.find(List.of("recovery", "recovery codes:", "xyz")));
+    }
+
+    @Test
+    public void testReplace() {
+        var random = new Random(1);
+        var words = List.of("alpha", "beta", "gamma", " ", "\n", ", ", "12", "x");
+        var index = new NoteIndex(TEXT);
+        var text = TEXT;
+        for (int i = 0; i < 1_000; i++) {
+            var start = random.nextInt(text.length() + 1);
+            var end = Math.min(text.length(), start + random.nextInt(5));
+            var inserted = random.nextInt(3) == 0 ? "" : words.get(random.nextInt(words.size()));
+            text = text.substring(0, start) + inserted + text.substring(end);
+
+            index.replace(text);
+            var expected = new NoteIndex(text);
+            assertEquals(text, index.text());
+            assertEquals(expected.wordCount(), index.wordCount());
+            for (var query : List.of("alpha", "b", "gamma 12", "x", "recovery", "12")) {
+                assertEquals(expected.find(query), index.find(query));
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.search;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.panteleyev.pwdmanager.model.FieldType;
+import org.panteleyev.pwdmanager.model.Picture;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+public class QueryParserTest {
+    private static final long DAY_START = LocalDate.of(2025, 1, 1).atStartOfDay(ZoneOffset.UTC)
+            .toInstant().toEpochMilli();
+    private static final long DAY_END = DAY_START + 24 * 60 * 60 * 1000;
+
+    private static List<Arguments> testParseArguments() {
+        return List.of(
+                // No syntax
+                arguments("", new Query.Text("")),
+                arguments("Bank Account", new Query.Text("bank account")),
+                arguments("https://bank.com", new Query.Text("https://bank.com")),
+                arguments("is:nothing", new Query.Text("is:nothing")),
+                // Terms
+                arguments("name:Bank", new Query.Name("bank")),
+                arguments("field:Login=John", new Query.FieldValue("login", "john")),
+                arguments("field:login", new Query.FieldValue("login", "")),
+                arguments("field:\"Card Number\"=1234", new Query.FieldValue("card number", "1234")),
+                arguments("type:LINK", new Query.HasField(FieldType.LINK)),
+                arguments("type:note", Query.Flag.NOTE),
+                arguments("picture:visa", new Query.WithPicture(Picture.VISA)),
+                arguments("is:favorite", Query.Flag.FAVORITE),
+                arguments("is:deleted", Query.Flag.DELETED),
+                arguments("modified:>2025-01-01", new Query.Modified(DAY_END, Long.MAX_VALUE)),
+                arguments("modified:>=2025-01-01", new Query.Modified(DAY_START, Long.MAX_VALUE)),
+                arguments("modified:<2025-01-01", new Query.Modified(Long.MIN_VALUE, DAY_START)),
+                arguments("modified:<=2025-01-01", new Query.Modified(Long.MIN_VALUE, DAY_END)),
+                arguments("modified:2025-01-01", new Query.Modified(DAY_START, DAY_END)),
+                // Operators
+                arguments("bank is:favorite", new Query.And(List.of(new Query.Text("bank"), Query.Flag.FAVORITE))),
+                arguments("bank AND NOT is:deleted",
+                        new Query.And(List.of(new Query.Text("bank"), new Query.Not(Query.Flag.DELETED)))),
+                arguments("a OR b c", new Query.Or(List.of(new Query.Text("a"),
+                        new Query.And(List.of(new Query.Text("b"), new Query.Text("c")))))),
+                arguments("(a OR b) c", new Query.And(List.of(
+                        new Query.Or(List.of(new Query.Text("a"), new Query.Text("b"))), new Query.Text("c")))),
+                arguments("\"is:favorite\" x", new Query.And(List.of(new Query.Text("is:favorite"),
+                        new Query.Text("x")))),
+                arguments("\"my bank\"", new Query.Text("my bank")),
+                // Incomplete queries
+                arguments("bank OR", new Query.Text("bank")),
+                arguments("bank AND NOT", new Query.Text("bank")),
+                arguments("(bank", new Query.Text("bank")),
+                arguments("bank) is:favorite", new Query.And(List.of(new Query.Text("bank"), Query.Flag.FAVORITE))),
+                arguments("modified:>2025-13-01 OR", new Query.Text("modified:>2025-13-01"))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testParseArguments")
+    public void testParse(String query, Query expected) {
+        assertEquals(expected, QueryParser.parse(query, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,418 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.panteleyev.pwdmanager.model.Card;
+import org.panteleyev.pwdmanager.model.Field;
+import org.panteleyev.pwdmanager.model.FieldType;
+import org.panteleyev.pwdmanager.model.Note;
+import org.panteleyev.pwdmanager.model.Picture;
+import org.panteleyev.pwdmanager.model.WalletRecord;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.panteleyev.TestUtil.randomString;
+import static org.panteleyev.pwdmanager.model.FieldType.STRING;
+
+public class SearchIndexTest {
+    private static final Card CARD = new Card("Bank Account", Picture.BANK, List.of(
+            new Field(STRING, "Login", "john.smith"),
+            new Field(STRING, "URL", "https://bank.example.com")
+    ));
+    private static final Note NOTE = new Note(UUID.randomUUID(), "Wi-Fi", "Router password is on the box", false);
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "a", "ba", "bank", "ACCOUNT", "smith", "example.com", "router", "wi-fi", "o", "xyz",
+            "bank account", "count"})
+    public void testSameAsScan(String query) {
+        var records = new ArrayList<WalletRecord>(List.of(CARD, NOTE));
+        for (int i = 0; i < 100; i++) {
+            records.add(new Card(randomString(), Picture.GENERIC, List.of(new Field(STRING, "Login", randomString()))));
+        }
+
+        var expected = records.stream().filter(r -> SearchIndex.score(r, query) > 0).toList();
+        var index = new SearchIndex();
+        index.reset(records);
+        assertEquals(Set.copyOf(expected), Set.copyOf(index.search(query)));
+        assertEquals(expected, records.stream().filter(index.filter(query)).toList());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"name:bank", "name:ba", "field:login=smith", "field:url", "field:pin", "type:LINK",
+            "type:note", "type:card", "picture:BANK", "is:favorite", "is:deleted", "modified:>2025-06-01",
+            "modified:<=2025-01-01", "modified:2025-03-15", "bank AND NOT is:deleted", "is:favorite OR type:note",
+            "(picture:bank OR picture:visa) is:favorite NOT type:LINK", "field:login=a1 OR name:\"b2\"",
+            "router AND type:note", "NOT (is:favorite OR is:deleted)"})
+    public void testQuerySameAsScan(String query) {
+        var start = LocalDate.of(2025, 1, 1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        var random = new Random(1);
+        var pictures = List.of(Picture.BANK, Picture.VISA, Picture.GENERIC);
+        var records = new ArrayList<WalletRecord>(List.of(CARD, NOTE));
+        for (int i = 0; i < 1_000; i++) {
+            var modified = start + random.nextLong(Duration.ofDays(365).toMillis());
+            var favorite = random.nextInt(5) == 0;
+            var active = random.nextInt(10) != 0;
+            if (random.nextInt(4) == 0) {
+                records.add(new Note(UUID.randomUUID(), "bank " + randomString(), randomString(), favorite, active,
+                        modified));
+            } else {
+                var fields = new ArrayList<>(List.of(new Field(STRING, "Login", randomString())));
+                if (random.nextBoolean()) {
+                    fields.add(new Field(FieldType.LINK, "URL", "https://" + randomString()));
+                }
+                records.add(new Card(UUID.randomUUID(), modified, pictures.get(random.nextInt(pictures.size())),
+                        randomString(), fields, "", favorite, active));
+            }
+        }
+
+        var index = new SearchIndex();
+        index.reset(records);
+        // Removed records must leave attribute indexes
+        for (int i = 0; i < 100; i++) {
+            index.remove(records.remove(random.nextInt(records.size())));
+        }
+
+        var expected = records.stream().filter(r -> SearchIndex.score(r, query) > 0).toList();
+        assertEquals(Set.copyOf(expected), Set.copyOf(index.search(query)));
+        assertEquals(expected, records.stream().filter(index.filter(query)).toList());
+    }
+
+    @Test
+    public void testQueryRanking() {
+        var other = new Card("Savings", Picture.BANK, List.of(new Field(STRING, "Bank", "bank of nowhere")));
+        var index = new SearchIndex();
+        index.reset(List.of(other, NOTE, CARD));
+
+        assertEquals(List.of(CARD, other), index.search("bank picture:bank"));
+        assertEquals(List.of(NOTE), index.search("type:note"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"a", "7f", "a1b", "is:favorite OR name:e", "NOT name:0 is:deleted"})
+    public void testParallelScan(String query) {
+        var random = new Random(1);
+        var records = new ArrayList<WalletRecord>();
+        for (int i = 0; i < 2 * SearchIndex.PARALLEL_THRESHOLD; i++) {
+            records.add(new Note(UUID.randomUUID(), randomString(), "", random.nextBoolean(), random.nextBoolean(),
+                    random.nextLong()));
+        }
+        var index = new SearchIndex();
+        index.reset(records);
+
+        var expected = records.stream().filter(r -> SearchIndex.score(r, query) > 0).toList();
+        assertEquals(expected, records.stream().filter(index.filter(query)).toList());
+    }
+
+    @Test
+    public void testChangesBeforeFirstQuery() {
+        var index = new SearchIndex();
+        index.reset(List.of(CARD));
+        index.add(NOTE);
+        index.remove(CARD);
+
+        assertEquals(List.of(NOTE), index.search("wi-fi"));
+        assertEquals(List.of(), index.search("bank"));
+    }
+
+    @Test
+    public void testChangesDuringBuild() throws Exception {
+        var records = new ArrayList<WalletRecord>();
+        for (int i = 0; i < 20_000; i++) {
+            records.add(new Note("note " + i));
+        }
+        var index = new SearchIndex();
+        index.reset(records);
+
+        // Records are changed until the index is built
+        var builder = Thread.ofPlatform().start(() -> index.search("note"));
+        var added = new ArrayList<WalletRecord>();
+        while ((builder.isAlive() || added.size() < 1_000) && added.size() < records.size()) {
+            index.remove(records.get(added.size()));
+            var note = new Note("added " + added.size());
+            index.add(note);
+            added.add(note);
+        }
+        builder.join();
+
+        assertEquals(Set.copyOf(records.subList(added.size(), records.size())), Set.copyOf(index.search("note")));
+        assertEquals(Set.copyOf(added), Set.copyOf(index.search("added")));
+        assertEquals(records.size(), index.size());
+    }
+
+    @Test
+    public void testAddAndRemove() {
+        var index = new SearchIndex();
+        assertEquals(List.of(), index.search("bank"));
+
+        index.add(CARD);
+        index.add(NOTE);
+        assertEquals(List.of(CARD), index.search("bank"));
+
+        var renamed = new Card(CARD.uuid(), CARD.modified(), CARD.picture(), "Savings", CARD.fields(), CARD.note(),
+                CARD.favorite(), CARD.active());
+        index.add(renamed);
+        assertEquals(List.of(), index.search("account"));
+        assertEquals(List.of(renamed), index.search("savings"));
+
+        index.remove(NOTE);
+        assertEquals(List.of(), index.search("router"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void testFilterChecksChangedRecords() {
+        var index = new SearchIndex();
+        index.reset(List.of(CARD));
+        var filter = index.filter("router");
+        assertFalse(filter.test(CARD));
+
+        // Record appears after the filter was created
+        assertTrue(filter.test(NOTE));
+        index.add(NOTE);
+        assertTrue(filter.test(NOTE));
+    }
+
+    @Test
+    public void testRanking() {
+        var prefix = new Card("Amazon", Picture.AMAZON, List.of());
+        var wordPrefix = new Card("My Amazon", Picture.AMAZON, List.of());
+        var substring = new Card("Shopamazon", Picture.GENERIC, List.of());
+        var note = new Note(UUID.randomUUID(), "Shopping", "Amazon orders", false);
+        var typo = new Card("Amazom", Picture.GENERIC, List.of());
+        var other = new Card("Bank", Picture.BANK, List.of());
+
+        var index = new SearchIndex();
+        index.reset(List.of(other, typo, note, substring, wordPrefix, prefix));
+
+        assertEquals(List.of(prefix, wordPrefix, substring, note, typo), index.search("amazon"));
+
+        var result = index.search("amazn");
+        assertEquals(Set.of(prefix, wordPrefix, typo), Set.copyOf(result.subList(0, 3)));
+        assertEquals(List.of(note), result.subList(3, result.size()));
+    }
+
+    @Test
+    public void testRefine() {
+        var records = new ArrayList<WalletRecord>();
+        for (int i = 0; i < 1_000; i++) {
+            records.add(new Note(UUID.randomUUID(), randomString(), "", false));
+        }
+        var index = new SearchIndex();
+        index.reset(records);
+
+        SearchIndex.Filter previous = null;
+        for (var query : List.of("a", "a1", "a1b", "a1b2")) {
+            if (query.equals("a1b")) {
+                // Changes between queries
+                index.remove(records.removeFirst());
+                var added = new Note(UUID.randomUUID(), "xa1b2x", "", false);
+                records.add(added);
+                index.add(added);
+            }
+            var filter = index.filter(query, previous);
+            var expected = records.stream().filter(index.filter(query)).toList();
+            assertEquals(expected, records.stream().filter(filter).toList());
+            assertEquals(query, filter.query());
+            previous = filter;
+        }
+    }
+
+    @Test
+    public void testRefineAfterReset() {
+        var index = new SearchIndex();
+        index.reset(List.of(CARD));
+        var previous = index.filter("bank");
+
+        index.reset(List.of(NOTE));
+        var filter = index.filter("bank account", previous);
+        assertFalse(filter.test(NOTE));
+        index.reset(List.of(CARD, NOTE));
+        assertTrue(index.filter("bank account", filter).test(CARD));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"a", "a1b", "bank", "rotuer", "field:login=smith", "type:LINK", "picture:BANK",
+            "is:favorite OR type:note"})
+    public void testExportAndRestore(String query) {
+        var random = new Random(1);
+        var records = new ArrayList<WalletRecord>(List.of(CARD, NOTE));
+        for (int i = 0; i < 1_000; i++) {
+            records.add(new Card(UUID.randomUUID(), 0, Picture.GENERIC, randomString(),
+                    List.of(new Field(FieldType.LINK, "URL", randomString())), "", random.nextBoolean(), true));
+        }
+        var index = new SearchIndex();
+        index.reset(records);
+        // Removed documents are not exported
+        for (int i = 0; i < 100; i++) {
+            index.remove(records.remove(random.nextInt(records.size())));
+        }
+        index.build();
+        var data = index.export(records).orElseThrow();
+
+        // Records changed after the export are indexed again
+        var changed = new ArrayList<>(records);
+        changed.removeFirst();
+        changed.set(10, new Note(changed.get(10).uuid(), "bank", "", true));
+        changed.add(new Note(UUID.randomUUID(), "router", "", false));
+
+        var restored = new SearchIndex();
+        restored.reset(changed);
+        assertTrue(restored.restore(ByteBuffer.wrap(data), records));
+        assertEquals(changed.size(), restored.size());
+
+        var expected = new SearchIndex();
+        expected.reset(changed);
+        assertEquals(changed.stream().filter(expected.filter(query)).toList(),
+                changed.stream().filter(restored.filter(query)).toList());
+        assertFalse(restored.restore(ByteBuffer.wrap(data), records));
+    }
+
+    @Test
+    public void testChangesDuringRestore() throws Exception {
+        var records = new ArrayList<WalletRecord>();
+        for (int i = 0; i < 20_000; i++) {
+            records.add(new Note("note " + i));
+        }
+        var index = new SearchIndex();
+        index.reset(records);
+        index.build();
+        var data = index.export(records).orElseThrow();
+
+        var restored = new SearchIndex();
+        restored.reset(records);
+        // Records are changed until the index is restored
+        var restorer = Thread.ofPlatform().start(() -> assertTrue(restored.restore(ByteBuffer.wrap(data), records)));
+        var added = new ArrayList<WalletRecord>();
+        while ((restorer.isAlive() || added.size() < 1_000) && added.size() < records.size()) {
+            restored.remove(records.get(added.size()));
+            var note = new Note("added " + added.size());
+            restored.add(note);
+            added.add(note);
+        }
+        restorer.join();
+
+        assertEquals(Set.copyOf(records.subList(added.size(), records.size())), Set.copyOf(restored.search("note")));
+        assertEquals(Set.copyOf(added), Set.copyOf(restored.search("added")));
+    }
+
+    @Test
+    public void testQueriesDoNotReadFields() {
+        // Fields of lazily decrypted cards are read only to index them
+        var reads = new AtomicInteger();
+        var fields = new AbstractList<Field>() {
+            private final List<Field> fields = CARD.fields();
+
+            @Override
+            public Field get(int index) {
+                reads.incrementAndGet();
+                return fields.get(index);
+            }
+
+            @Override
+            public int size() {
+                return fields.size();
+            }
+        };
+        var card = new Card(UUID.randomUUID(), 0, Picture.BANK, "Bank Account", fields, "", false, true);
+        var records = new ArrayList<WalletRecord>(List.of(card, NOTE));
+        for (int i = 0; i < 100; i++) {
+            records.add(new Note(randomString()));
+        }
+
+        var index = new SearchIndex();
+        index.reset(records);
+        index.build();
+        var data = index.export(records).orElseThrow();
+        var restored = new SearchIndex();
+        restored.reset(records);
+        assertTrue(restored.restore(ByteBuffer.wrap(data), records));
+
+        var indexReads = reads.get();
+        for (var searchIndex : List.of(index, restored)) {
+            for (var query : List.of("field:login=smith", "field:url", "field:login=xyz", "type:STRING",
+                    "NOT field:login=smith", "bank field:url=example"))
+            {
+                var filter = searchIndex.filter(query);
+                assertEquals(records.stream().filter(r -> SearchIndex.score(r, query) > 0).toList(),
+                        records.stream().filter(filter).toList());
+                reads.set(indexReads);
+                searchIndex.search(query);
+                assertEquals(indexReads, reads.get());
+            }
+        }
+    }
+
+    @Test
+    public void testExportOtherRecords() {
+        var index = new SearchIndex();
+        index.reset(List.of(CARD, NOTE));
+        // Export does not build the index
+        assertTrue(index.export(List.of(CARD, NOTE)).isEmpty());
+        index.build();
+        assertTrue(index.export(List.of(CARD)).isEmpty());
+        assertTrue(index.export(List.of(CARD, new Note(NOTE.uuid(), "Wi-Fi", "", false))).isEmpty());
+        assertTrue(index.export(List.of(NOTE, CARD)).isPresent());
+    }
+
+    @Test
+    public void testDetach() {
+        var index = new SearchIndex();
+        index.reset(List.of(CARD, NOTE));
+        assertTrue(index.detach().export(List.of(CARD, NOTE)).isEmpty());
+        assertEquals(List.of(CARD), index.search("bank"));
+
+        var detached = index.detach();
+        index.reset(List.of(NOTE));
+        assertEquals(List.of(), index.search("bank"));
+        assertTrue(detached.export(List.of(CARD, NOTE)).isPresent());
+        assertEquals(List.of(CARD), detached.search("bank"));
+    }
+
+    @Test
+    public void testRestoreInvalidData() {
+        var index = new SearchIndex();
+        index.reset(List.of(CARD, NOTE));
+        index.build();
+        var data = index.export(List.of(CARD, NOTE)).orElseThrow();
+
+        var restored = new SearchIndex();
+        restored.reset(List.of(CARD, NOTE));
+        assertFalse(restored.restore(ByteBuffer.wrap(data, 0, data.length - 1), List.of(CARD, NOTE)));
+        assertEquals(List.of(CARD), restored.search("bank"));
+    }
+
+    @Test
+    public void testCompaction() {
+        var index = new SearchIndex();
+        index.search("");
+
+        for (int i = 0; i < 5_000; i++) {
+            var note = new Note(UUID.randomUUID(), "note " + i, "", false);
+            index.add(note);
+            if (i % 10 != 0) {
+                index.remove(note);
+            }
+        }
+        index.add(NOTE);
+
+        assertEquals(501, index.size());
+        assertEquals(List.of(NOTE), index.search("router"));
+        assertEquals(500, index.search("note ").size());
+    }
+}
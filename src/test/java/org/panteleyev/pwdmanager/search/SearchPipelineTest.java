@@ -0,0 +1,78 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.search;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.panteleyev.pwdmanager.model.Note;
+import org.panteleyev.pwdmanager.model.WalletRecord;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SearchPipelineTest {
+    private static final Note FIRST = new Note(UUID.randomUUID(), "first", "", false);
+    private static final Note SECOND = new Note(UUID.randomUUID(), "second", "", false);
+    private static final List<WalletRecord> RECORDS = List.of(FIRST, SECOND);
+
+    // Stands for the FX application thread
+    private final ExecutorService owner = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    public void tearDown() {
+        owner.shutdownNow();
+    }
+
+    @Test
+    public void testOnlyLastQueryIsPublished() throws Exception {
+        var results = new CopyOnWriteArrayList<SearchIndex.Filter>();
+        var published = new CountDownLatch(1);
+        var pipeline = newPipeline(filter -> {
+            results.add(filter);
+            published.countDown();
+        });
+
+        owner.submit(() -> {
+            pipeline.submit("fir");
+            pipeline.submit("sec");
+        }).get();
+
+        assertTrue(published.await(10, TimeUnit.SECONDS));
+        // Give the cancelled query a chance to be published if it was not cancelled
+        Thread.sleep(300);
+        assertEquals(1, results.size());
+        assertEquals(List.of(SECOND), RECORDS.stream().filter(results.getFirst()).toList());
+        owner.submit(pipeline::close).get();
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        var results = new CopyOnWriteArrayList<SearchIndex.Filter>();
+        var pipeline = newPipeline(results::add);
+
+        owner.submit(() -> {
+            pipeline.submit("first");
+            pipeline.cancel();
+        }).get();
+
+        Thread.sleep(300);
+        assertEquals(List.of(), results);
+        owner.submit(pipeline::close).get();
+    }
+
+    private SearchPipeline newPipeline(Consumer<SearchIndex.Filter> consumer) {
+        var index = new SearchIndex();
+        index.reset(RECORDS);
+        return new SearchPipeline(index, Duration.ofMillis(50), owner, consumer);
+    }
+}
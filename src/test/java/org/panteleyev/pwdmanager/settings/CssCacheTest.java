@@ -0,0 +1,70 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.settings;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.panteleyev.pwdmanager.TemplateEngine.Template;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.panteleyev.TestUtil.randomString;
+
+public class CssCacheTest {
+    private static final Map<String, Object> MODEL = Map.of(
+            "controlsFontFamily", "System",
+            "controlsFontSize", 12,
+            "fieldNameColor", "#0000ff"
+    );
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void testWriteAndRead() {
+        var sheets = new EnumMap<Template, byte[]>(Template.class);
+        for (var template : Template.values()) {
+            sheets.put(template, randomString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        var cache = new CssCache(directory.resolve("css"));
+        var key = CssCache.key(MODEL);
+        cache.write(key, sheets);
+
+        var read = cache.read(key).orElseThrow();
+        for (var template : Template.values()) {
+            assertArrayEquals(sheets.get(template), read.get(template));
+        }
+        assertTrue(cache.read(CssCache.key(Map.of())).isEmpty());
+    }
+
+    @Test
+    public void testMissingCache() {
+        assertTrue(new CssCache(directory).read(CssCache.key(MODEL)).isEmpty());
+    }
+
+    @Test
+    public void testIncompleteCache() throws Exception {
+        var key = CssCache.key(MODEL);
+        Files.writeString(directory.resolve(CssCache.KEY_FILE_NAME), key);
+        assertTrue(new CssCache(directory).read(key).isEmpty());
+    }
+
+    @Test
+    public void testKey() {
+        assertEquals(CssCache.key(MODEL), CssCache.key(Map.copyOf(MODEL)));
+
+        var changed = new HashMap<>(MODEL);
+        changed.put("controlsFontSize", 13);
+        assertNotEquals(CssCache.key(MODEL), CssCache.key(changed));
+    }
+}
@@ -0,0 +1,83 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.panteleyev.pwdmanager.model.Card;
+import org.panteleyev.pwdmanager.model.CardType;
+import org.panteleyev.pwdmanager.model.Field;
+import org.panteleyev.pwdmanager.model.FieldType;
+import org.panteleyev.pwdmanager.model.Note;
+import org.panteleyev.pwdmanager.model.Picture;
+import org.panteleyev.pwdmanager.model.WalletRecord;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.panteleyev.TestUtil.randomString;
+
+public class BinaryCodecTest {
+    private static final String FIELD_NAME = randomString();
+
+    private static final List<WalletRecord> RECORDS = List.of(
+            new Card(
+                    UUID.randomUUID(),
+                    System.currentTimeMillis(),
+                    Picture.AMEX,
+                    randomString(),
+                    List.of(
+                            new Field(FieldType.STRING, FIELD_NAME, randomString()),
+                            new Field(FieldType.HIDDEN, randomString(), ""),
+                            new Field(FieldType.CARD_TYPE, randomString(), CardType.MASTERCARD),
+                            new Field(FieldType.DATE, randomString(), LocalDate.of(1965, 3, 1)),
+                            new Field(FieldType.EXPIRATION_MONTH, randomString(), LocalDate.of(2031, 12, 1))
+                    ),
+                    randomString() + "\nЗаметка",
+                    true, false
+            ),
+            new Card(
+                    UUID.randomUUID(),
+                    System.currentTimeMillis(),
+                    Picture.BANK,
+                    randomString(),
+                    List.of(new Field(FieldType.STRING, FIELD_NAME, randomString())),
+                    "",
+                    false, true
+            ),
+            new Note(UUID.randomUUID(), randomString(), randomString(), true),
+            new Note(randomString())
+    );
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        var out = new ByteArrayOutputStream();
+        BinaryCodec.write(out, RECORDS);
+
+        assertEquals(RECORDS, BinaryCodec.read(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test
+    public void testConversion() throws Exception {
+        var file = tempDir.resolve("wallet.pwd");
+
+        WalletFiles.write(file, "", RECORDS, WalletFormat.BINARY);
+        var fromBinary = WalletFiles.read(file, "");
+        assertEquals(RECORDS, fromBinary);
+
+        WalletFiles.write(file, "", fromBinary, WalletFormat.XML);
+        var fromXml = WalletFiles.read(file, "");
+        assertEquals(RECORDS, fromXml);
+
+        WalletFiles.write(file, "", fromXml, WalletFormat.BINARY);
+        assertEquals(RECORDS, WalletFiles.read(file, ""));
+    }
+}
@@ -0,0 +1,81 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.panteleyev.TestUtil.randomString;
+
+public class ChunkedCipherTest {
+    private static final Random RANDOM = new Random();
+
+    private static byte[] encrypt(byte[] data, String password) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var key = new SessionKey(password); var cOut = ChunkedCipher.encrypt(out, key)) {
+            cOut.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decrypt(byte[] data, String password) throws IOException {
+        try (var key = new SessionKey(password);
+             var in = ChunkedCipher.decrypt(new ByteArrayInputStream(data), key))
+        {
+            return in.readAllBytes();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, ChunkedCipher.CHUNK_SIZE, 10 * ChunkedCipher.CHUNK_SIZE + 17})
+    public void testEncryptAndDecrypt(int size) throws Exception {
+        var data = new byte[size];
+        RANDOM.nextBytes(data);
+        var password = randomString();
+
+        assertArrayEquals(data, decrypt(encrypt(data, password), password));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3 * ChunkedCipher.CHUNK_SIZE})
+    public void testDamagedContainer(int size) throws Exception {
+        var data = new byte[size];
+        RANDOM.nextBytes(data);
+        var password = randomString();
+        var encrypted = encrypt(data, password);
+
+        assertThrows(WrongPasswordException.class, () -> decrypt(encrypted, randomString()));
+        assertThrows(WrongPasswordException.class, () -> decrypt(encrypted, ""));
+
+        var damaged = encrypted.clone();
+        damaged[damaged.length - 1] ^= 1;
+        assertThrows(IOException.class, () -> decrypt(damaged, password));
+
+        var truncated = Arrays.copyOf(encrypted, encrypted.length - 1);
+        assertThrows(IOException.class, () -> decrypt(truncated, password));
+    }
+
+    @Test
+    public void testCheckKey() throws Exception {
+        var password = randomString();
+        var encrypted = encrypt(new byte[3 * ChunkedCipher.CHUNK_SIZE], password);
+
+        try (var key = new SessionKey(password)) {
+            assertTrue(ChunkedCipher.checkKey(new ByteArrayInputStream(encrypted), key));
+        }
+        try (var key = new SessionKey(randomString())) {
+            assertFalse(ChunkedCipher.checkKey(new ByteArrayInputStream(encrypted), key));
+        }
+    }
+}
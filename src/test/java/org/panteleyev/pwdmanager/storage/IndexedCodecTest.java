@@ -0,0 +1,106 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import org.junit.jupiter.api.Test;
+import org.panteleyev.pwdmanager.model.Card;
+import org.panteleyev.pwdmanager.model.CardType;
+import org.panteleyev.pwdmanager.model.Field;
+import org.panteleyev.pwdmanager.model.FieldType;
+import org.panteleyev.pwdmanager.model.Note;
+import org.panteleyev.pwdmanager.model.Picture;
+import org.panteleyev.pwdmanager.model.WalletRecord;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.panteleyev.TestUtil.randomString;
+
+public class IndexedCodecTest {
+    private static final List<WalletRecord> RECORDS = List.of(
+            new Card(
+                    UUID.randomUUID(),
+                    System.currentTimeMillis(),
+                    Picture.AMEX,
+                    randomString(),
+                    List.of(
+                            new Field(FieldType.STRING, randomString(), randomString()),
+                            new Field(FieldType.CARD_TYPE, randomString(), CardType.MASTERCARD),
+                            new Field(FieldType.DATE, randomString(), LocalDate.of(1965, 3, 1))
+                    ),
+                    randomString(),
+                    true, false
+            ),
+            new Card(randomString(), Picture.BANK, List.of()),
+            new Note(UUID.randomUUID(), randomString(), randomString(), true)
+    );
+
+    private static byte[] write(SessionKey key, List<WalletRecord> records) throws IOException {
+        var out = new ByteArrayOutputStream();
+        IndexedCodec.write(out, key, records);
+        return out.toByteArray();
+    }
+
+    private static List<WalletRecord> read(byte[] data, String password) throws IOException {
+        try (var key = new SessionKey(password)) {
+            return IndexedCodec.read(data, key).stream().map(WalletFiles::detach).toList();
+        }
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        var password = randomString();
+        try (var key = new SessionKey(password); var emptyKey = new SessionKey("")) {
+            assertEquals(RECORDS, read(write(key, RECORDS), password));
+            assertEquals(RECORDS, read(write(emptyKey, RECORDS), ""));
+        }
+    }
+
+    @Test
+    public void testWrongPassword() throws Exception {
+        byte[] data;
+        try (var key = new SessionKey(randomString())) {
+            data = write(key, RECORDS);
+        }
+        assertThrows(WrongPasswordException.class, () -> read(data, randomString()));
+        assertThrows(WrongPasswordException.class, () -> read(data, ""));
+    }
+
+    @Test
+    public void testRewriteLoadedRecords() throws Exception {
+        var password = randomString();
+        try (var key = new SessionKey(password)) {
+            var loaded = new ArrayList<>(IndexedCodec.read(write(key, RECORDS), key));
+            var copy = loaded.getFirst().copyWithNewUuid();
+            loaded.add(copy);
+            var expected = new ArrayList<>(RECORDS);
+            expected.add(copy);
+
+            // Same key: unchanged bodies are copied as is
+            assertEquals(expected, read(write(key, loaded), password));
+
+            // New password: bodies are encrypted again
+            var newPassword = randomString();
+            try (var newKey = new SessionKey(newPassword)) {
+                assertEquals(expected, read(write(newKey, loaded), newPassword));
+            }
+        }
+    }
+
+    @Test
+    public void testClosedKey() throws Exception {
+        var key = new SessionKey(randomString());
+        var loaded = IndexedCodec.read(write(key, RECORDS), key);
+        var detached = WalletFiles.detach(loaded.getFirst());
+        key.close();
+
+        assertEquals(RECORDS.getFirst(), detached);
+        assertThrows(RuntimeException.class, () -> ((Card) loaded.getFirst()).fields().getFirst());
+    }
+}
@@ -0,0 +1,64 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KeyDerivationTest {
+    @ParameterizedTest
+    @EnumSource(KeyDerivationAlgorithm.class)
+    public void testWriteAndRead(KeyDerivationAlgorithm algorithm) throws Exception {
+        var keyDerivation = KeyDerivation.random(algorithm, KeyDerivationAlgorithm.MIN_ITERATIONS);
+
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            keyDerivation.write(out);
+        }
+        var read = KeyDerivation.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(keyDerivation, read);
+    }
+
+    @Test
+    public void testUnknownAlgorithm() {
+        var in = new DataInputStream(new ByteArrayInputStream(new byte[]{0x7F, 0x00, 0x01}));
+        assertThrows(IOException.class, () -> KeyDerivation.read(in));
+    }
+
+    @Test
+    public void testAlgorithmAffectsKey() {
+        var password = "password".toCharArray();
+        var salt = new byte[KeyDerivation.SALT_SIZE];
+        var iterations = KeyDerivationAlgorithm.MIN_ITERATIONS;
+
+        var sha256 = new KeyDerivation(KeyDerivationAlgorithm.PBKDF2_SHA256, salt, iterations);
+        var sha512 = new KeyDerivation(KeyDerivationAlgorithm.PBKDF2_SHA512, salt, iterations);
+
+        assertArrayEquals(sha256.deriveKey(password), sha256.deriveKey(password));
+        assertFalse(Arrays.equals(sha256.deriveKey(password), sha512.deriveKey(password)));
+        assertFalse(sha256.equals(sha512));
+    }
+
+    @Test
+    public void testCalibrate() {
+        var iterations = KeyDerivationAlgorithm.PBKDF2_SHA256.calibrate(Duration.ofMillis(50));
+        assertTrue(iterations >= KeyDerivationAlgorithm.MIN_ITERATIONS);
+        assertTrue(iterations <= KeyDerivationAlgorithm.MAX_ITERATIONS);
+    }
+}
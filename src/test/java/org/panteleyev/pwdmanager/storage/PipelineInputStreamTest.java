@@ -0,0 +1,42 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PipelineInputStreamTest {
+    private static final byte[] DATA = new byte[1_000_000];
+
+    static {
+        new Random(1).nextBytes(DATA);
+    }
+
+    @Test
+    public void testTransfer() throws Exception {
+        try (var in = new PipelineInputStream(out -> {
+            for (int i = 0; i < DATA.length; i += 7777) {
+                out.write(DATA, i, Math.min(7777, DATA.length - i));
+            }
+        }, 4096, 2)) {
+            assertArrayEquals(DATA, in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testProducerFailure() {
+        try (var in = new PipelineInputStream(out -> {
+            out.write(DATA);
+            throw new IOException("failure");
+        }, 4096, 2)) {
+            var ex = assertThrows(IOException.class, in::readAllBytes);
+            assertEquals("failure", ex.getMessage());
+        }
+    }
+}
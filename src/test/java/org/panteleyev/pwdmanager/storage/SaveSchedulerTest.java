@@ -0,0 +1,35 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.panteleyev.pwdmanager.model.Note;
+import org.panteleyev.pwdmanager.model.WalletRecord;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.panteleyev.TestUtil.randomString;
+
+public class SaveSchedulerTest {
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void testLastSnapshotIsWritten() throws Exception {
+        var file = tempDir.resolve("wallet.pwd");
+        var records = new ArrayList<WalletRecord>();
+
+        try (var key = new SessionKey(""); var scheduler = new SaveScheduler()) {
+            for (int i = 0; i < 100; i++) {
+                records.add(new Note(randomString()));
+                scheduler.save(new SaveScheduler.Snapshot(file, key, records));
+            }
+            scheduler.flush();
+            assertEquals(records, WalletFiles.read(file, ""));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.panteleyev.pwdmanager.model.Note;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.panteleyev.TestUtil.randomString;
+
+public class SearchIndexFileTest {
+    private static final Note NOTE = new Note(randomString());
+    private static final byte[] INDEX = randomString().getBytes();
+
+    @TempDir
+    private Path tempDir;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "password"})
+    public void testWriteAndRead(String password) throws Exception {
+        var file = tempDir.resolve("wallet.pwd");
+        try (var key = new SessionKey(password)) {
+            WalletFiles.write(file, key, List.of(NOTE), WalletFormat.BINARY);
+            var checksum = SearchIndexFile.checksum(file);
+            SearchIndexFile.write(file, key, checksum, INDEX);
+
+            assertEquals(Optional.of(ByteBuffer.wrap(INDEX)), SearchIndexFile.read(file, key, checksum));
+            var content = Files.readAllBytes(SearchIndexFile.indexFile(file));
+            assertEquals(password.isEmpty(), Arrays.equals(content, content.length - INDEX.length, content.length,
+                    INDEX, 0, INDEX.length));
+        }
+    }
+
+    @Test
+    public void testDelete() throws Exception {
+        var file = tempDir.resolve("wallet.pwd");
+        try (var key = new SessionKey("password")) {
+            WalletFiles.write(file, key, List.of(NOTE), WalletFormat.BINARY);
+            var checksum = SearchIndexFile.checksum(file);
+            SearchIndexFile.write(file, key, checksum, INDEX);
+
+            SearchIndexFile.delete(file);
+            assertFalse(Files.exists(SearchIndexFile.indexFile(file)));
+            assertTrue(SearchIndexFile.read(file, key, checksum).isEmpty());
+            // Missing index is not an error
+            SearchIndexFile.delete(file);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "password"})
+    public void testJournalChangesChecksum(String password) throws Exception {
+        var file = tempDir.resolve("wallet.pwd");
+        try (var key = new SessionKey(password)) {
+            WalletFiles.write(file, key, List.of(NOTE), WalletFormat.BINARY);
+            var checksum = SearchIndexFile.checksum(file);
+            SearchIndexFile.write(file, key, checksum, INDEX);
+
+            WalletJournal.append(file, key, new WalletJournal.Remove(NOTE.uuid()));
+            var newChecksum = SearchIndexFile.checksum(file);
+            assertFalse(Arrays.equals(checksum, newChecksum));
+
+            // Index that does not match the wallet is deleted
+            assertTrue(SearchIndexFile.read(file, key, newChecksum).isEmpty());
+            assertFalse(Files.exists(SearchIndexFile.indexFile(file)));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "password"})
+    public void testDamagedIndexIsDeleted(String password) throws Exception {
+        var file = tempDir.resolve("wallet.pwd");
+        try (var key = new SessionKey(password)) {
+            WalletFiles.write(file, key, List.of(NOTE), WalletFormat.BINARY);
+            var checksum = SearchIndexFile.checksum(file);
+            var indexFile = SearchIndexFile.indexFile(file);
+
+            Files.write(indexFile, new byte[]{1, 2, 3});
+            assertTrue(SearchIndexFile.read(file, key, checksum).isEmpty());
+            assertFalse(Files.exists(indexFile));
+
+            if (!password.isEmpty()) {
+                SearchIndexFile.write(file, key, checksum, INDEX);
+                var content = Files.readAllBytes(indexFile);
+                content[content.length - 1] ^= 1;
+                Files.write(indexFile, content);
+                assertTrue(SearchIndexFile.read(file, key, checksum).isEmpty());
+                assertFalse(Files.exists(indexFile));
+            }
+        }
+    }
+}
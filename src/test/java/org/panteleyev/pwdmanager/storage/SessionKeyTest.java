@@ -0,0 +1,66 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.panteleyev.TestUtil.randomString;
+
+public class SessionKeyTest {
+    private static final byte[] DATA = randomString().getBytes(StandardCharsets.UTF_8);
+    private static final byte[] AAD = {1, 2, 3};
+
+    @Test
+    public void testGenerationIsReused() {
+        try (var key = new SessionKey(randomString())) {
+            assertSame(key.keyDerivation(), key.keyDerivation());
+        }
+    }
+
+    @Test
+    public void testGenerationIsTakenFromFile() {
+        var fileKeyDerivation = KeyDerivation.random();
+        try (var key = new SessionKey(randomString())) {
+            key.cipher(fileKeyDerivation);
+            assertEquals(fileKeyDerivation, key.keyDerivation());
+        }
+    }
+
+    @Test
+    public void testSameKeyForSameParameters() throws Exception {
+        var password = randomString();
+        var keyDerivation = KeyDerivation.random();
+        try (var key = new SessionKey(password); var other = new SessionKey(password)) {
+            var encrypted = key.cipher(keyDerivation).encrypt(DATA, AAD);
+            assertArrayEquals(DATA, other.cipher(keyDerivation).decrypt(encrypted, 0, encrypted.length, AAD));
+        }
+    }
+
+    @Test
+    public void testEmptyPassword() {
+        try (var key = new SessionKey("")) {
+            assertTrue(key.isEmpty());
+            assertSame(RecordCipher.NONE, key.cipher());
+        }
+    }
+
+    @Test
+    public void testClosed() {
+        var key = new SessionKey(randomString());
+        var cipher = key.cipher();
+        key.close();
+
+        assertThrows(IllegalStateException.class, key::cipher);
+        assertThrows(IllegalStateException.class, key::isEmpty);
+        assertThrows(IllegalStateException.class, () -> cipher.encrypt(DATA, AAD));
+        // Second close is allowed
+        key.close();
+    }
+}
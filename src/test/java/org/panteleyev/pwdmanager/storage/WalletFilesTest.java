@@ -0,0 +1,45 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.panteleyev.pwdmanager.model.Card;
+import org.panteleyev.pwdmanager.model.Field;
+import org.panteleyev.pwdmanager.model.FieldType;
+import org.panteleyev.pwdmanager.model.Note;
+import org.panteleyev.pwdmanager.model.Picture;
+import org.panteleyev.pwdmanager.model.WalletRecord;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.panteleyev.TestUtil.randomString;
+
+public class WalletFilesTest {
+    private static final List<WalletRecord> RECORDS = List.of(
+            new Card(randomString(), Picture.AMEX, List.of(
+                    new Field(FieldType.STRING, randomString(), randomString()),
+                    new Field(FieldType.HIDDEN, randomString(), randomString())
+            )),
+            new Note(randomString())
+    );
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void testWriteReplacesFile() throws Exception {
+        var file = tempDir.resolve("wallet.pwd");
+        Files.writeString(file, "old content");
+
+        WalletFiles.write(file, "", RECORDS);
+
+        assertEquals(RECORDS, WalletFiles.read(file, ""));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+}
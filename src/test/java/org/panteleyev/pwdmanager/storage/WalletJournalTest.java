@@ -0,0 +1,227 @@
+// Copyright © 2026 Petr Panteleyev
+// SPDX-License-Identifier: BSD-2-Clause
+package org.panteleyev.pwdmanager.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.panteleyev.pwdmanager.model.Card;
+import org.panteleyev.pwdmanager.model.Field;
+import org.panteleyev.pwdmanager.model.FieldType;
+import org.panteleyev.pwdmanager.model.Note;
+import org.panteleyev.pwdmanager.model.Picture;
+import org.panteleyev.pwdmanager.model.WalletRecord;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.panteleyev.TestUtil.randomString;
+
+public class WalletJournalTest {
+    private static final Card CARD = new Card(randomString(), Picture.AMEX, List.of(
+            new Field(FieldType.STRING, randomString(), randomString())
+    ));
+    private static final Note NOTE = new Note(randomString());
+
+    private static final SessionKey KEY = new SessionKey("");
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void testReplay() throws Exception {
+        var file = tempDir.resolve("wallet.pwd");
+        WalletFiles.write(file, "", List.of(CARD, NOTE));
+
+        var newNote = new Note(randomString());
+        var favoriteCard = CARD.setFavorite(true);
+        WalletJournal.append(file, KEY, new WalletJournal.Put(newNote));
+        WalletJournal.append(file, KEY, new WalletJournal.Put(favoriteCard));
+        WalletJournal.append(file, KEY, new WalletJournal.Remove(NOTE.uuid()));
+
+        assertEquals(List.of(favoriteCard, newNote), WalletFiles.read(file, ""));
+    }
+
+    @Test
+    public void testTornEntryIsDiscarded() throws Exception {
+        var file = tempDir.resolve("wallet.pwd");
+        WalletFiles.write(file, "", List.of(CARD));
+
+        var size = WalletJournal.append(file, KEY, new WalletJournal.Put(NOTE));
+        WalletJournal.append(file, KEY, new WalletJournal.Remove(CARD.uuid()));
+        try (var channel = FileChannel.open(WalletJournal.journalFile(file), WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+
+        assertEquals(List.<WalletRecord>of(CARD, NOTE), WalletFiles.read(file, ""));
+        assertEquals(size, Files.size(WalletJournal.journalFile(file)));
+    }
+
+    @Test
+    public void testStaleJournalIsIgnored() throws Exception {
+        var file = tempDir.resolve("wallet.pwd");
+        WalletFiles.write(file, "", List.of(CARD));
+        WalletJournal.append(file, KEY, new WalletJournal.Remove(CARD.uuid()));
+        var journal = Files.readAllBytes(WalletJournal.journalFile(file));
+
+        WalletFiles.write(file, "", List.of(CARD, NOTE));
+        assertFalse(Files.exists(WalletJournal.journalFile(file)));
+
+        // Journal left from the previous checkpoint
+        Files.write(WalletJournal.journalFile(file), journal);
+        assertEquals(List.of(CARD, NOTE), WalletFiles.read(file, ""));
+    }
+
+    @Test
+    public void testUnknownJournalIsIgnored() throws Exception {
+        var file = tempDir.resolve("wallet.pwd");
+        WalletFiles.write(file, "", List.of(CARD));
+        var journal = WalletJournal.journalFile(file);
+
+        Files.write(journal, new byte[]{'P', 'W', 'M', 'X', 1, 2, 3});
+        assertEquals(-1, WalletJournal.append(file, KEY, new WalletJournal.Put(NOTE)));
+
+        assertEquals(List.<WalletRecord>of(CARD), WalletFiles.read(file, ""));
+        assertFalse(Files.exists(journal));
+    }
+
+    @Test
+    public void testFailedAppendIsRolledBack() throws Exception {
+        var file = tempDir.resolve("wallet.pwd");
+        WalletFiles.write(file, "", List.of(CARD));
+
+        var size = WalletJournal.append(file, KEY, new WalletJournal.Put(NOTE));
+        try (var channel = new FailingChannel(FileChannel.open(WalletJournal.journalFile(file), READ, WRITE), 10)) {
+            assertThrows(IOException.class,
+                    () -> WalletJournal.append(channel, file, KEY, new WalletJournal.Remove(NOTE.uuid())));
+        }
+        assertEquals(size, Files.size(WalletJournal.journalFile(file)));
+
+        var favoriteCard = CARD.setFavorite(true);
+        WalletJournal.append(file, KEY, new WalletJournal.Put(favoriteCard));
+        assertEquals(List.of(favoriteCard, NOTE), WalletFiles.read(file, ""));
+    }
+
+    /**
+     * Channel that fails after the given number of bytes is written, e.g. when the disk is full.
+     */
+    private static final class FailingChannel extends FileChannel {
+        private final FileChannel channel;
+        private int remaining;
+
+        FailingChannel(FileChannel channel, int remaining) {
+            this.channel = channel;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (remaining == 0) {
+                throw new IOException("No space left on device");
+            }
+            var limit = src.limit();
+            src.limit(Math.min(limit, src.position() + remaining));
+            try {
+                var written = channel.write(src);
+                remaining -= written;
+                return written;
+            } finally {
+                src.limit(limit);
+            }
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return channel.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return channel.read(dsts, offset, length);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return channel.read(dst, position);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return channel.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            channel.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return channel.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            channel.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            channel.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            channel.close();
+        }
+    }
+}